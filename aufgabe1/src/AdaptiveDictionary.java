@@ -0,0 +1,183 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Dictionary that switches its representation online depending on size and access pattern.
+ * <p>
+ * Small dictionaries are kept in a SortedArrayDictionary. Larger ones are kept in a
+ * SwissHashDictionary if most operations are point operations (search, insert, remove),
+ * or in a BinaryTreeDictionary if ordered operations (range) make up a noticeable share.
+ * <p>
+ * The operations are counted in windows of WINDOW operations; the counts of older windows
+ * are halved, so the decision follows the recent access pattern. The representation is
+ * only reconsidered at the end of a window. Both the size thresholds and the share of
+ * ordered operations have a hysteresis (a tree is taken from TREE_ENTER on and kept down to
+ * TREE_LEAVE), and a large dictionary only switches between hash and tree after at least
+ * n operations since the last migration, so that a migration (O(n)) is amortized over
+ * the operations. The target representation is built in one pass: sorted representations
+ * from a sorted array, the hash table presized.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class AdaptiveDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    static final int SMALL_MAX = 256;  // darüber wird das sortierte Feld verlassen
+    static final int SMALL_MIN = 128;  // darunter wird wieder ein sortiertes Feld genommen
+    static final int WINDOW = 1024;
+    static final double TREE_ENTER = 0.05;  // ab diesem Anteil geordneter Operationen wird ein Baum genommen
+    static final double TREE_LEAVE = 0.01;  // darunter wird der Baum wieder verlassen
+
+    enum Representation { SORTED_ARRAY, HASH, TREE }
+
+    private Dictionary<K, V> dict = new SortedArrayDictionary<>();
+    private Representation representation = Representation.SORTED_ARRAY;
+    private double pointOps = 0;
+    private double orderedOps = 0;
+    private int opsInWindow = 0;
+    private long opsSinceMigration = 0;
+    private int migrations = 0;
+
+    @Override
+    public V insert(K key, V value) {
+        V old = dict.insert(key, value);
+        point();
+        if (representation == Representation.SORTED_ARRAY && dict.size() > SMALL_MAX) {
+            adapt();  // sortiertes Feld nicht zu groß werden lassen
+        }
+        return old;
+    }
+
+    @Override
+    public V search(K key) {
+        V v = dict.search(key);
+        point();
+        return v;
+    }
+
+    @Override
+    public V remove(K key) {
+        V old = dict.remove(key);
+        point();
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return dict.size();
+    }
+
+    /**
+     * Returns an iterator in the order of the current representation
+     * (ascending keys for the sorted array and the tree).
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return dict.iterator();
+    }
+
+    /**
+     * Returns the entries with from &lt;= key &lt; to in ascending key order.
+     * Counts as ordered operation. The sorted array and the tree find the first entry by
+     * binary search or descent (O(log n + k)); with a hash representation all entries
+     * have to be scanned and sorted.
+     * @param from lower bound (inclusive), null = unbounded.
+     * @param to upper bound (exclusive), null = unbounded.
+     * @return list of the entries in range.
+     */
+    public List<Entry<K, V>> range(K from, K to) {
+        List<Entry<K, V>> res;
+        switch (representation) {
+            case SORTED_ARRAY: res = ((SortedArrayDictionary<K, V>) dict).range(from, to); break;
+            case TREE: res = ((BinaryTreeDictionary<K, V>) dict).range(from, to); break;
+            default:
+                res = new ArrayList<>();
+                for (Entry<K, V> e : dict) {
+                    if ((from == null || e.getKey().compareTo(from) >= 0) && (to == null || e.getKey().compareTo(to) < 0)) {
+                        res.add(e);
+                    }
+                }
+                res.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+                break;
+        }
+        orderedOps++;
+        tick();
+        return res;
+    }
+
+    private void point() {
+        pointOps++;
+        tick();
+    }
+
+    private void tick() {
+        opsSinceMigration++;
+        if (++opsInWindow >= WINDOW) {
+            adapt();
+            pointOps /= 2;  // ältere Fenster zählen weniger
+            orderedOps /= 2;
+            opsInWindow = 0;
+        }
+    }
+
+    private void adapt() {
+        Representation target;
+        int n = dict.size();
+        if (n <= SMALL_MIN || (representation == Representation.SORTED_ARRAY && n <= SMALL_MAX)) {
+            target = Representation.SORTED_ARRAY;
+        } else if (representation != Representation.SORTED_ARRAY && opsSinceMigration < n) {
+            return;  // Wechsel zwischen Hash und Baum wäre noch nicht amortisiert
+        } else {
+            double share = orderedOps / Math.max(1, pointOps + orderedOps);
+            boolean tree = representation == Representation.TREE ? share >= TREE_LEAVE : share >= TREE_ENTER;
+            target = tree ? Representation.TREE : Representation.HASH;
+        }
+        if (target != representation) {
+            migrate(target);
+        }
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private void migrate(Representation target) {
+        Dictionary<K, V> next;
+        if (target == Representation.HASH) {
+            next = new SwissHashDictionary<>(dict.size());
+            for (Entry<K, V> e : dict) {
+                next.insert(e.getKey(), e.getValue());
+            }
+        } else {
+            Entry<K, V>[] entries = new Entry[dict.size()];
+            int i = 0;
+            for (Entry<K, V> e : dict) {
+                entries[i++] = new Entry<>(e.getKey(), e.getValue());
+            }
+            if (representation == Representation.HASH) {
+                Arrays.sort(entries, (a, b) -> a.getKey().compareTo(b.getKey()));
+            }
+            next = target == Representation.TREE ? BinaryTreeDictionary.ofSorted(entries)
+                    : SortedArrayDictionary.ofSorted(entries, entries.length);
+        }
+        dict = next;
+        opsSinceMigration = 0;
+        representation = target;
+        migrations++;
+    }
+
+    /**
+     * Returns the current representation.
+     * @return SORTED_ARRAY, HASH or TREE.
+     */
+    Representation representation() {
+        return representation;
+    }
+
+    /**
+     * Returns how often the representation has been changed.
+     * @return number of migrations.
+     */
+    public int migrations() {
+        return migrations;
+    }
+}
@@ -0,0 +1,307 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of the Dictionary interface as AVL tree whose nodes are stored
+ * in parallel arrays (struct of arrays) instead of one object per node.
+ * <p>
+ * A node is an index into the arrays left, right, parent, height, keys and values;
+ * NIL (-1) stands for the empty tree. Removed nodes are kept in a free list (linked
+ * via left) and reused. Compared to BinaryTreeDictionary there are no node objects
+ * with their headers and references, the tree structure lies in a few compact int
+ * arrays, and the garbage collector only sees the arrays.
+ * <p>
+ * The algorithms are the same as in BinaryTreeDictionary; the iterator walks
+ * the parent indices.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class ArrayTreeDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private static final int NIL = -1;
+    private static final int DEF_CAPACITY = 16;
+
+    private int[] left;
+    private int[] right;
+    private int[] parent;
+    private byte[] height;
+    private Object[] keys;
+    private Object[] values;
+
+    private int root = NIL;
+    private int size = 0;
+    private int used = 0;  // Knoten 0 .. used-1 wurden schon vergeben
+    private int free = NIL;
+    private V oldValue;
+
+    // vom rekursiven Löschen des Minimums geliefert
+    private Object minKey;
+    private Object minValue;
+
+    public ArrayTreeDictionary() {
+        left = new int[DEF_CAPACITY];
+        right = new int[DEF_CAPACITY];
+        parent = new int[DEF_CAPACITY];
+        height = new byte[DEF_CAPACITY];
+        keys = new Object[DEF_CAPACITY];
+        values = new Object[DEF_CAPACITY];
+    }
+
+    private int newNode(K key, V value) {
+        int p;
+        if (free != NIL) {
+            p = free;
+            free = left[p];
+        } else {
+            if (used == keys.length) {
+                int capacity = 2 * used;
+                left = Arrays.copyOf(left, capacity);
+                right = Arrays.copyOf(right, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                height = Arrays.copyOf(height, capacity);
+                keys = Arrays.copyOf(keys, capacity);
+                values = Arrays.copyOf(values, capacity);
+            }
+            p = used++;
+        }
+        left[p] = NIL;
+        right[p] = NIL;
+        parent[p] = NIL;
+        height[p] = 0;
+        keys[p] = key;
+        values[p] = value;
+        return p;
+    }
+
+    private void freeNode(int p) {
+        keys[p] = null;
+        values[p] = null;
+        left[p] = free;
+        free = p;
+    }
+
+    @SuppressWarnings("unchecked")
+    private K key(int p) {
+        return (K) keys[p];
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        root = insertR(key, value, root);
+        parent[root] = NIL;
+        return oldValue;  // liefere den alten Wert zurück
+    }
+
+    @SuppressWarnings("unchecked")
+    private int insertR(K key, V value, int p) {
+        if (p == NIL) {  // Knoten kommt nicht vor, füge neuen Knoten ein
+            oldValue = null;
+            size++;
+            return newNode(key, value);
+        }
+        int c = key.compareTo(key(p));
+        if (c < 0) {  // key ist kleiner als Knoten, suche links weiter
+            int q = insertR(key, value, left[p]);  // erst danach left lesen, das Feld kann gewachsen sein
+            left[p] = q;
+            parent[q] = p;
+        } else if (c > 0) {  // key ist größer als Knoten, suche rechts weiter
+            int q = insertR(key, value, right[p]);
+            right[p] = q;
+            parent[q] = p;
+        } else {  // speichere alten Wert und aktualisiere den Knoten mit neuem Wert
+            oldValue = (V) values[p];
+            values[p] = value;
+            return p;
+        }
+        return balance(p);  // balanciere den Baum, sodass er ein AVL-Baum bleibt
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int p = root;
+        while (p != NIL) {
+            int c = key.compareTo(key(p));
+            if (c < 0) {
+                p = left[p];
+            } else if (c > 0) {
+                p = right[p];
+            } else {
+                return (V) values[p];
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V remove(K key) {
+        oldValue = null;
+        root = removeR(key, root);
+        if (root != NIL) {
+            parent[root] = NIL;
+        }
+        return oldValue;  // liefere alten Wert zurück, standardmäßig null
+    }
+
+    @SuppressWarnings("unchecked")
+    private int removeR(K key, int p) {
+        if (p == NIL) {  // Knoten kommt nicht vor, tue nichts
+            return NIL;
+        }
+        int c = key.compareTo(key(p));
+        if (c < 0) {
+            left[p] = removeR(key, left[p]);
+            if (left[p] != NIL) {
+                parent[left[p]] = p;
+            }
+        } else if (c > 0) {
+            right[p] = removeR(key, right[p]);
+            if (right[p] != NIL) {
+                parent[right[p]] = p;
+            }
+        } else if (left[p] == NIL || right[p] == NIL) {  // höchstens ein Kind, Knoten wird ausgehängt
+            oldValue = (V) values[p];
+            int q = left[p] != NIL ? left[p] : right[p];
+            freeNode(p);
+            size--;
+            return q;
+        } else {  // zwei Kinder, ersetze p durch kleinsten Knoten im rechten Teilbaum
+            oldValue = (V) values[p];
+            right[p] = removeMinR(right[p]);
+            if (right[p] != NIL) {
+                parent[right[p]] = p;
+            }
+            keys[p] = minKey;
+            values[p] = minValue;
+            minKey = null;
+            minValue = null;
+            size--;
+        }
+        return balance(p);
+    }
+
+    private int removeMinR(int p) {
+        if (left[p] == NIL) {  // kleinsten Knoten gefunden
+            minKey = keys[p];
+            minValue = values[p];
+            int q = right[p];
+            freeNode(p);
+            return q;
+        }
+        left[p] = removeMinR(left[p]);
+        if (left[p] != NIL) {
+            parent[left[p]] = p;
+        }
+        return balance(p);
+    }
+
+    private int height(int p) {
+        return p == NIL ? -1 : height[p];
+    }
+
+    private int getBalance(int p) {
+        return height(right[p]) - height(left[p]);
+    }
+
+    private void updateHeight(int p) {
+        height[p] = (byte) (Math.max(height(left[p]), height(right[p])) + 1);
+    }
+
+    private int balance(int p) {
+        updateHeight(p);
+        if (getBalance(p) == -2) {
+            if (getBalance(left[p]) > 0) {
+                left[p] = rotateLeft(left[p]);  // Fall A2
+                parent[left[p]] = p;
+            }
+            p = rotateRight(p);  // Fall A1
+        } else if (getBalance(p) == 2) {
+            if (getBalance(right[p]) < 0) {
+                right[p] = rotateRight(right[p]);  // Fall B2
+                parent[right[p]] = p;
+            }
+            p = rotateLeft(p);  // Fall B1
+        }
+        return p;
+    }
+
+    private int rotateRight(int p) {
+        int q = left[p];
+        left[p] = right[q];
+        if (left[p] != NIL) {
+            parent[left[p]] = p;
+        }
+        right[q] = p;
+        parent[p] = q;
+        updateHeight(p);
+        updateHeight(q);
+        return q;
+    }
+
+    private int rotateLeft(int p) {
+        int q = right[p];
+        right[p] = left[q];
+        if (right[p] != NIL) {
+            parent[right[p]] = p;
+        }
+        left[q] = p;
+        parent[p] = q;
+        updateHeight(p);
+        updateHeight(q);
+        return q;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the height of the tree.
+     * @return height, -1 for the empty tree.
+     */
+    public int getHeight() {
+        return height(root);
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+
+            private int current = root == NIL ? NIL : leftMostDescendant(root);  // nächster Knoten
+
+            @Override
+            public boolean hasNext() {
+                return current != NIL;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (current == NIL) {
+                    throw new NoSuchElementException();
+                }
+                Entry<K, V> e = new Entry<>(key(current), (V) values[current]);
+                if (right[current] != NIL) {
+                    current = leftMostDescendant(right[current]);
+                } else {  // aufsteigen, bis man von links kommt
+                    int p = current;
+                    while (parent[p] != NIL && right[parent[p]] == p) {
+                        p = parent[p];
+                    }
+                    current = parent[p];
+                }
+                return e;
+            }
+        };
+    }
+
+    private int leftMostDescendant(int p) {
+        while (left[p] != NIL) {
+            p = left[p];
+        }
+        return p;
+    }
+}
@@ -0,0 +1,152 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BK-tree over strings for approximate search with the Levenshtein distance.
+ * <p>
+ * Every child of a node is labelled with its distance to the node. Since the
+ * Levenshtein distance is a metric, a search for all words within distance k of a
+ * query q only has to descend into children with label in [d-k, d+k], where d is the
+ * distance between q and the node. For small k only a small part of the tree is
+ * visited, so a miss on the full word list is corrected in well under a millisecond
+ * instead of computing the distance to every key.
+ * <p>
+ * Not thread-safe: a search reuses the rows of the distance matrix.
+ */
+public class BKTree {
+
+    private static class Node {
+        final String word;
+        Node[] children = null;  // Index = Abstand zum Knoten
+
+        Node(String word) {
+            this.word = word;
+        }
+    }
+
+    private Node root = null;
+    private int size = 0;
+    private int[] prev = new int[16];
+    private int[] cur = new int[16];
+
+    public BKTree() {}
+
+    /**
+     * Builds a tree containing all keys of dict.
+     * @param dict dictionary with string keys.
+     */
+    public BKTree(Dictionary<String, ?> dict) {
+        for (Dictionary.Entry<String, ?> e : dict) {
+            add(e.getKey());
+        }
+    }
+
+    /**
+     * Adds a word.
+     * @param word word to be added.
+     * @return false if word was already contained.
+     */
+    public boolean add(String word) {
+        if (root == null) {
+            root = new Node(word);
+            size++;
+            return true;
+        }
+        Node p = root;
+        while (true) {
+            int d = distance(word, p.word, Integer.MAX_VALUE);
+            if (d == 0) {
+                return false;
+            }
+            if (p.children == null || p.children.length <= d) {
+                p.children = p.children == null ? new Node[d + 1] : Arrays.copyOf(p.children, d + 1);
+            }
+            if (p.children[d] == null) {
+                p.children[d] = new Node(word);
+                size++;
+                return true;
+            }
+            p = p.children[d];
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the words within distance k of word, closest first
+     * (words with equal distance in lexicographic order).
+     * @param word query.
+     * @param k maximal Levenshtein distance.
+     * @return list of the words found.
+     */
+    public List<String> search(String word, int k) {
+        List<List<String>> byDistance = new ArrayList<>();
+        for (int i = 0; i <= k; i++) {
+            byDistance.add(new ArrayList<>());
+        }
+        if (root != null) {
+            searchR(root, word, k, byDistance);
+        }
+        List<String> res = new ArrayList<>();
+        for (List<String> l : byDistance) {
+            l.sort(null);
+            res.addAll(l);
+        }
+        return res;
+    }
+
+    private void searchR(Node p, String word, int k, List<List<String>> byDistance) {
+        int max = p.children == null ? 0 : p.children.length - 1;
+        int d = distance(word, p.word, max + k);  // größere Abstände schneiden kein Kind mehr
+        if (d <= k) {
+            byDistance.get(d).add(p.word);
+        }
+        if (p.children == null) {
+            return;
+        }
+        for (int i = Math.max(1, d - k); i <= Math.min(max, d + k); i++) {
+            if (p.children[i] != null) {
+                searchR(p.children[i], word, k, byDistance);
+            }
+        }
+    }
+
+    /**
+     * Levenshtein distance of a and b with two rows of the dynamic programming matrix.
+     * Stops early and returns a value greater than bound once the distance exceeds bound.
+     */
+    int distance(String a, String b, int bound) {
+        int n = a.length();
+        int m = b.length();
+        if (Math.abs(n - m) > bound) {
+            return bound + 1;
+        }
+        if (prev.length <= m) {
+            prev = new int[m + 1];
+            cur = new int[m + 1];
+        }
+        for (int j = 0; j <= m; j++) {
+            prev[j] = j;
+        }
+        for (int i = 1; i <= n; i++) {
+            cur[0] = i;
+            int rowMin = i;
+            char c = a.charAt(i - 1);
+            for (int j = 1; j <= m; j++) {
+                int cost = c == b.charAt(j - 1) ? 0 : 1;
+                cur[j] = Math.min(Math.min(cur[j - 1] + 1, prev[j] + 1), prev[j - 1] + cost);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (rowMin > bound) {
+                return bound + 1;  // Zeilenminimum fällt nie mehr
+            }
+            int[] t = prev;
+            prev = cur;
+            cur = t;
+        }
+        return prev[m];
+    }
+}
@@ -0,0 +1,265 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Non-interactive load test for the TUI: runs a command file or a generated
+ * workload of s/i/d operations against one Dictionary implementation and reports
+ * throughput and latency percentiles.
+ * <pre>
+ * java TUI batch [-impl NAME] [-load WORDFILE [-intern]] [-threads N] -script COMMANDFILE
+ * java TUI batch [-impl NAME] [-load WORDFILE [-intern]] [-threads N] -ops COUNT [-mix S/I/D]
+ * </pre>
+ * With -intern the loaded keys and values are deduplicated via StringPool.SHARED.
+ * NAME is one of the implementation class names; the prefix Synchronized (e.g.
+ * SynchronizedHashDictionary) wraps it in a SynchronizedDictionary, the prefix Sharded
+ * partitions it into one shard per core in a ShardedDictionary. More than one
+ * thread is only allowed for thread-safe dictionaries. With several threads the lines
+ * of a command file are distributed round-robin, a generated workload is split evenly.
+ */
+final class BatchMode {
+
+    private static final byte SEARCH = 0;
+    private static final byte INSERT = 1;
+    private static final byte REMOVE = 2;
+    private static final String[] NAMES = {"s", "i", "d"};
+
+    private BatchMode() {}
+
+    /** Vorab erzeugte Operationen, damit das Parsen nicht mitgemessen wird. */
+    private static class Workload {
+        final byte[] op;
+        final String[] key;
+        final String[] value;
+
+        Workload(int n) {
+            op = new byte[n];
+            key = new String[n];
+            value = new String[n];
+        }
+    }
+
+    static void run(String[] args) throws IOException, InterruptedException {
+        String impl = "SortedArrayDictionary";
+        String load = null;
+        String script = null;
+        int threads = 1;
+        int ops = 0;
+        int[] mix = {90, 5, 5};
+        boolean intern = false;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-impl": impl = args[++i]; break;
+                case "-load": load = args[++i]; break;
+                case "-threads": threads = Integer.parseInt(args[++i]); break;
+                case "-script": script = args[++i]; break;
+                case "-ops": ops = Integer.parseInt(args[++i]); break;
+                case "-intern": intern = true; break;
+                case "-mix":
+                    String[] m = args[++i].split("/");
+                    mix = new int[] {Integer.parseInt(m[0]), Integer.parseInt(m[1]), Integer.parseInt(m[2])};
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown option " + args[i]);
+            }
+        }
+        if (script == null && ops <= 0) {
+            throw new IllegalArgumentException("either -script FILE or -ops COUNT is required");
+        }
+
+        Dictionary<String, String> dict = create(impl);
+        if (threads > 1 && !isThreadSafe(dict)) {
+            throw new IllegalArgumentException(impl + " is not thread-safe, use Synchronized" + impl);
+        }
+        List<String> words = new ArrayList<>();
+        if (load != null) {
+            long start = System.nanoTime();
+            try (BufferedReader rd = new BufferedReader(new FileReader(load))) {
+                String line;
+                while ((line = rd.readLine()) != null) {
+                    String[] entry = line.split(" ");
+                    if (entry.length >= 2) {
+                        if (intern) {
+                            entry[0] = StringPool.SHARED.intern(entry[0]);
+                            entry[1] = StringPool.SHARED.intern(entry[1]);
+                        }
+                        dict.insert(entry[0], entry[1]);
+                        words.add(entry[0]);
+                    }
+                }
+            }
+            System.out.printf("Loaded %d entries in %dms%n", dict.size(), (System.nanoTime() - start) / 1000000);
+            if (intern) {
+                System.out.printf("Interned %d duplicates, %d KB saved%n", StringPool.SHARED.duplicates(),
+                        StringPool.SHARED.bytesSaved() / 1024);
+            }
+        }
+
+        Workload[] work = script != null ? readScript(Path.of(script), threads) : generate(words, ops, mix, threads);
+        LatencyHistogram[][] hist = new LatencyHistogram[threads][3];
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            for (int k = 0; k < 3; k++) {
+                hist[t][k] = new LatencyHistogram();
+            }
+            Workload w = work[t];
+            LatencyHistogram[] h = hist[t];
+            workers[t] = new Thread(() -> execute(dict, w, h), "batch-" + t);
+        }
+        long start = System.nanoTime();
+        for (Thread w : workers) {
+            w.start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        long wall = System.nanoTime() - start;
+
+        LatencyHistogram all = new LatencyHistogram();
+        LatencyHistogram[] perOp = {new LatencyHistogram(), new LatencyHistogram(), new LatencyHistogram()};
+        for (int t = 0; t < threads; t++) {
+            for (int k = 0; k < 3; k++) {
+                perOp[k].add(hist[t][k]);
+                all.add(hist[t][k]);
+            }
+        }
+        System.out.printf("%s, %d thread(s): %d ops in %dms, %.0f ops/s, final size %d%n", impl, threads,
+                all.count(), wall / 1000000, all.count() / (wall / 1e9), dict.size());
+        report("all", all);
+        for (int k = 0; k < 3; k++) {
+            if (perOp[k].count() > 0) {
+                report(NAMES[k], perOp[k]);
+            }
+        }
+        if (dict instanceof ShardedDictionary) {
+            ShardedDictionary<String, String> sd = (ShardedDictionary<String, String>) dict;
+            for (int s = 0; s < sd.shards(); s++) {
+                report("#" + s, sd.latency(s));
+                System.out.printf("      peak queue depth %d%n", sd.peakQueueDepth(s));
+            }
+        }
+        if (dict instanceof AutoCloseable) {
+            try {
+                ((AutoCloseable) dict).close();
+            } catch (Exception e) {
+                throw new IOException(e);
+            }
+        }
+    }
+
+    private static void execute(Dictionary<String, String> dict, Workload w, LatencyHistogram[] h) {
+        for (int i = 0; i < w.op.length; i++) {
+            long start = System.nanoTime();
+            switch (w.op[i]) {
+                case SEARCH: dict.search(w.key[i]); break;
+                case INSERT: dict.insert(w.key[i], w.value[i]); break;
+                default: dict.remove(w.key[i]); break;
+            }
+            h[w.op[i]].record(System.nanoTime() - start);
+        }
+    }
+
+    private static void report(String name, LatencyHistogram h) {
+        System.out.printf("  %-3s n=%-9d mean=%.0fns p50=%dns p90=%dns p99=%dns p999=%dns max=%dns%n", name, h.count(),
+                h.mean(), h.percentile(50), h.percentile(90), h.percentile(99), h.percentile(99.9), h.max());
+    }
+
+    static Dictionary<String, String> create(String name) throws IOException {
+        if (name.startsWith("Synchronized")) {
+            return new SynchronizedDictionary<>(create(name.substring("Synchronized".length())));
+        }
+        if (name.startsWith("Sharded")) {
+            String shard = name.substring("Sharded".length());
+            return new ShardedDictionary<>(Runtime.getRuntime().availableProcessors(), () -> {
+                try {
+                    return create(shard);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        }
+        switch (name) {
+            case "HashDictionary": return new HashDictionary<>(3);
+            case "BinaryTreeDictionary": return new BinaryTreeDictionary<>();
+            case "ArrayTreeDictionary": return new ArrayTreeDictionary<>();
+            case "SortedArrayDictionary": return new SortedArrayDictionary<>();
+            case "CuckooHashDictionary": return new CuckooHashDictionary<>();
+            case "SwissHashDictionary": return new SwissHashDictionary<>();
+            case "AdaptiveDictionary": return new AdaptiveDictionary<>();
+            case "BidirectionalDictionary": return new BidirectionalDictionary<>();
+            case "LsmDictionary": return temporaryLsm();
+            default: throw new IllegalArgumentException("unknown implementation " + name);
+        }
+    }
+
+    /* LsmDictionary in einem temporären Verzeichnis, das beim Schließen gelöscht wird */
+    private static LsmDictionary temporaryLsm() throws IOException {
+        Path dir = Files.createTempDirectory("lsm");
+        return new LsmDictionary(dir) {
+            @Override
+            public void close() throws IOException {
+                super.close();
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+                    for (Path f : files) {
+                        Files.delete(f);
+                    }
+                }
+                Files.delete(dir);
+            }
+        };
+    }
+
+    private static boolean isThreadSafe(Dictionary<String, String> dict) {
+        return dict instanceof SynchronizedDictionary || dict instanceof LsmDictionary
+                || dict instanceof LoggedDictionary || dict instanceof ShardedDictionary;
+    }
+
+    private static Workload[] readScript(Path file, int threads) throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            if (!line.isBlank() && "sid".indexOf(line.charAt(0)) >= 0 && line.length() > 1 && line.charAt(1) == ' ') {
+                lines.add(line);
+            }
+        }
+        Workload[] work = new Workload[threads];
+        for (int t = 0; t < threads; t++) {
+            work[t] = new Workload((lines.size() - t + threads - 1) / threads);
+        }
+        for (int i = 0; i < lines.size(); i++) {
+            String[] args = lines.get(i).split(" ");
+            Workload w = work[i % threads];
+            int j = i / threads;
+            w.op[j] = (byte) "sid".indexOf(args[0].charAt(0));
+            w.key[j] = args[1];
+            w.value[j] = args.length > 2 ? args[2] : "";
+        }
+        return work;
+    }
+
+    private static Workload[] generate(List<String> words, int ops, int[] mix, int threads) {
+        int total = mix[0] + mix[1] + mix[2];
+        Workload[] work = new Workload[threads];
+        for (int t = 0; t < threads; t++) {
+            Random rnd = new Random(t);
+            Workload w = work[t] = new Workload(ops / threads + (t < ops % threads ? 1 : 0));
+            for (int j = 0; j < w.op.length; j++) {
+                int r = rnd.nextInt(total);
+                w.op[j] = r < mix[0] ? SEARCH : r < mix[0] + mix[1] ? INSERT : REMOVE;
+                if (w.op[j] == INSERT || words.isEmpty()) {
+                    w.key[j] = "w" + t + "_" + rnd.nextInt(Math.max(1, ops));  // neue Schlüssel
+                } else {
+                    w.key[j] = words.get(rnd.nextInt(words.size()));
+                }
+                w.value[j] = "v" + j;
+            }
+        }
+        return work;
+    }
+}
@@ -0,0 +1,272 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Dictionary that can also be searched by value, e.g. a German-English word list
+ * that is used for translations in both directions.
+ * <p>
+ * Every pair is stored once, in parallel arrays indexed by an entry id. Two open
+ * addressing hash tables (linear probing, load factor at most 1/2) contain only ids:
+ * the forward table maps a key to its id, the inverse table maps a value to the id
+ * of the first entry with this value. Entries with equal values are linked by id,
+ * so a value may belong to several keys.
+ * <p>
+ * Compared to two separate dictionaries no entry objects, list nodes or second copies
+ * of the references are needed; per pair there are two references, four ints and
+ * at most four int slots in the tables. Removed ids are reused via a free list.
+ * Both directions are O(1) on average.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class BidirectionalDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private static final int DEF_CAPACITY = 16;
+    private static final int NONE = -1;
+
+    // Einträge, Index = id; keys[id] == null heißt frei
+    private Object[] keys;
+    private Object[] values;
+    private int[] keyHash;
+    private int[] valueHash;
+    private int[] nextSame;  // nächste id mit gleichem Wert, bei freien ids nächste freie id
+    private int[] prevSame;
+
+    // Hashtabellen mit id + 1, 0 = leer
+    private int[] forward;
+    private int[] inverse;
+
+    private int used = 0;  // ids 0 .. used-1 wurden schon vergeben
+    private int free = NONE;
+    private int size = 0;
+
+    public BidirectionalDictionary() {
+        keys = new Object[DEF_CAPACITY];
+        values = new Object[DEF_CAPACITY];
+        keyHash = new int[DEF_CAPACITY];
+        valueHash = new int[DEF_CAPACITY];
+        nextSame = new int[DEF_CAPACITY];
+        prevSame = new int[DEF_CAPACITY];
+        forward = new int[2 * DEF_CAPACITY];
+        inverse = new int[2 * DEF_CAPACITY];
+    }
+
+    private static int hash(Object o) {
+        int h = o.hashCode() * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /** Liefert den Slot von key in forward oder -(Einfügeslot)-1. */
+    private int findKey(Object key, int h) {
+        int mask = forward.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int id = forward[slot] - 1;
+            if (id < 0) {
+                return ~slot;
+            }
+            if (keyHash[id] == h && keys[id].equals(key)) {
+                return slot;
+            }
+        }
+    }
+
+    /** Liefert den Slot von value in inverse oder -(Einfügeslot)-1. */
+    private int findValue(Object value, int h) {
+        int mask = inverse.length - 1;
+        for (int slot = h & mask; ; slot = (slot + 1) & mask) {
+            int id = inverse[slot] - 1;
+            if (id < 0) {
+                return ~slot;
+            }
+            if (valueHash[id] == h && values[id].equals(value)) {
+                return slot;
+            }
+        }
+    }
+
+    /** Löscht einen Slot ohne Grabstein: nachfolgende Einträge werden zurückgeschoben. */
+    private static void removeSlot(int[] table, int slot, int[] hashes) {
+        int mask = table.length - 1;
+        int hole = slot;
+        for (int s = (slot + 1) & mask; table[s] != 0; s = (s + 1) & mask) {
+            int home = hashes[table[s] - 1] & mask;
+            if (((s - home) & mask) >= ((s - hole) & mask)) {  // home liegt nicht in (hole, s]
+                table[hole] = table[s];
+                hole = s;
+            }
+        }
+        table[hole] = 0;
+    }
+
+    private void linkValue(int id) {
+        int slot = findValue(values[id], valueHash[id]);
+        prevSame[id] = NONE;
+        if (slot >= 0) {
+            int head = inverse[slot] - 1;
+            nextSame[id] = head;
+            prevSame[head] = id;
+            inverse[slot] = id + 1;
+        } else {
+            nextSame[id] = NONE;
+            inverse[~slot] = id + 1;
+        }
+    }
+
+    private void unlinkValue(int id) {
+        int p = prevSame[id];
+        int n = nextSame[id];
+        if (n != NONE) {
+            prevSame[n] = p;
+        }
+        if (p != NONE) {
+            nextSame[p] = n;
+            return;
+        }
+        int slot = findValue(values[id], valueHash[id]);  // id ist Kopf der Liste
+        if (n != NONE) {
+            inverse[slot] = n + 1;  // gleicher Wert, Slot bleibt gültig
+        } else {
+            removeSlot(inverse, slot, valueHash);
+        }
+    }
+
+    private void grow() {
+        int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        values = Arrays.copyOf(values, capacity);
+        keyHash = Arrays.copyOf(keyHash, capacity);
+        valueHash = Arrays.copyOf(valueHash, capacity);
+        nextSame = Arrays.copyOf(nextSame, capacity);
+        prevSame = Arrays.copyOf(prevSame, capacity);
+        forward = new int[2 * capacity];
+        inverse = new int[2 * capacity];
+        for (int id = 0; id < used; id++) {
+            if (keys[id] != null) {  // beim Wachsen gibt es keine freien ids
+                forward[~findKey(keys[id], keyHash[id])] = id + 1;
+                if (prevSame[id] == NONE) {
+                    inverse[~findValue(values[id], valueHash[id])] = id + 1;
+                }
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        int kh = hash(key);
+        int vh = hash(value);
+        int slot = findKey(key, kh);
+        if (slot >= 0) {
+            int id = forward[slot] - 1;
+            V old = (V) values[id];
+            if (vh != valueHash[id] || !old.equals(value)) {
+                unlinkValue(id);
+                values[id] = value;
+                valueHash[id] = vh;
+                linkValue(id);
+            }
+            return old;
+        }
+        if (free == NONE && used == keys.length) {
+            grow();
+            slot = findKey(key, kh);
+        }
+        int id;
+        if (free != NONE) {
+            id = free;
+            free = nextSame[id];
+        } else {
+            id = used++;
+        }
+        keys[id] = key;
+        keyHash[id] = kh;
+        values[id] = value;
+        valueHash[id] = vh;
+        forward[~slot] = id + 1;
+        linkValue(id);
+        size++;
+        return null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int slot = findKey(key, hash(key));
+        return slot >= 0 ? (V) values[forward[slot] - 1] : null;
+    }
+
+    /**
+     * Returns all keys that are associated with value, the most recently inserted first.
+     * @param value value searched for.
+     * @return list of the keys, empty if value is not contained.
+     */
+    @SuppressWarnings("unchecked")
+    public List<K> searchInverse(V value) {
+        List<K> res = new ArrayList<>();
+        int slot = findValue(value, hash(value));
+        if (slot >= 0) {
+            for (int id = inverse[slot] - 1; id != NONE; id = nextSame[id]) {
+                res.add((K) keys[id]);
+            }
+        }
+        return res;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int slot = findKey(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        int id = forward[slot] - 1;
+        V old = (V) values[id];
+        removeSlot(forward, slot, keyHash);
+        unlinkValue(id);
+        keys[id] = null;
+        values[id] = null;
+        nextSame[id] = free;
+        free = id;
+        size--;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+
+            private int current = advance(-1);
+
+            private int advance(int id) {
+                do {
+                    id++;
+                } while (id < used && keys[id] == null);
+                return id;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return current < used;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Entry<K, V> e = new Entry<>((K) keys[current], (V) values[current]);
+                current = advance(current);
+                return e;
+            }
+        };
+    }
+}
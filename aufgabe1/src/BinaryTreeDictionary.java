@@ -1,7 +1,18 @@
 // O. Bittel
 // 22.09.2022
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * Implementation of the Dictionary interface as AVL tree.
@@ -68,6 +79,9 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
     @Override
     public V remove(K key) {
         root = removeR(key, root);
+        if (root != null) {
+            root.parent = null;
+        }
         return oldValue;  // liefere alten Wert zurück, standardmäßig null
     }
 
@@ -76,8 +90,14 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
             oldValue = null;
         } else if (key.compareTo(p.key) < 0) {  // key ist kleiner als Knoten, suche links weiter
             p.left = removeR(key, p.left);
+            if (p.left != null) {
+                p.left.parent = p;
+            }
         } else if (key.compareTo(p.key) > 0) {  // key ist größer als Knoten, suche rechts weiter
             p.right = removeR(key, p.right);
+            if (p.right != null) {
+                p.right.parent = p;
+            }
         } else if (p.left == null || p.right == null) {  // Knoten hat genau ein Kind und wird ausgehängt
             oldValue = p.value;
             p = (p.left != null) ? p.left : p.right;
@@ -85,6 +105,9 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         } else {  // Knoten hat zwei Kinder, ersetze p durch kleinsten Knoten im rechten Teilbaum
             MinEntry<K, V> min = new MinEntry<>();
             p.right = getRemMinR(p.right, min);
+            if (p.right != null) {
+                p.right.parent = p;
+            }
             oldValue = p.value;
             p.key = min.key;
             p.value = min.value;
@@ -102,6 +125,9 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
             p = p.right;
         } else {  // linker Teilbaum ist leer, suche rechts weiter
             p.left = getRemMinR(p.left, min);
+            if (p.left != null) {
+                p.left.parent = p;
+            }
         }
         p = balance(p);  // balanciere den Baum, sodass er ein AVL-Baum bleibt
         return p;  // liefere den Baum zurück
@@ -120,6 +146,10 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         }
     }
 
+    private static int getWeight(Node<?, ?> p) {
+        return p == null ? 0 : p.weight;
+    }
+
     public int getBalance(Node<K, V> p) {
         if (p == null) {  // Knoten mit jeweils leeren Teilbäumen hat Höhenunterschied 0
             return 0;
@@ -133,6 +163,7 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
             return null;
         }
         p.height = Math.max(getHeight(p.left), getHeight(p.right)) + 1;  // Höhe aktualisieren
+        p.weight = getWeight(p.left) + getWeight(p.right) + 1;
         if (getBalance(p) == -2) {
             if (getBalance(p.left) <= 0) {
                 p = rotateRight(p);  // Fall A1
@@ -160,6 +191,8 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
             q.right.parent = q;
         p.height = Math.max(getHeight(p.left), getHeight(p.right)) + 1;
         q.height = Math.max(getHeight(q.left), getHeight(q.right)) + 1;
+        p.weight = getWeight(p.left) + getWeight(p.right) + 1;
+        q.weight = getWeight(q.left) + getWeight(q.right) + 1;
         return q;
     }
     private Node<K, V> rotateLeftRight(Node<K, V> p) {
@@ -178,6 +211,8 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
             q.left.parent = q;
         p.height = Math.max(getHeight(p.right), getHeight(p.left)) + 1;
         q.height = Math.max(getHeight(q.right), getHeight(q.left)) + 1;
+        p.weight = getWeight(p.left) + getWeight(p.right) + 1;
+        q.weight = getWeight(q.left) + getWeight(q.right) + 1;
         return q;
     }
     private Node<K, V> rotateRightLeft(Node<K, V> p) {
@@ -186,27 +221,393 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         return rotateLeft(p);
     }
 
+    /**
+     * Splits this dictionary at key.
+     * Afterwards this dictionary contains all entries with keys less than key;
+     * the entries with keys greater than or equal to key are moved to the returned dictionary.
+     * Runs in O(log n).
+     * @param key split key.
+     * @return dictionary with all entries whose keys are greater than or equal to key.
+     */
+    public BinaryTreeDictionary<K, V> split(K key) {
+        Split<K, V> s = splitR(root, key);
+        BinaryTreeDictionary<K, V> right = new BinaryTreeDictionary<>();
+        right.setRoot(s.found == null ? s.right : join(null, s.found, s.right));
+        setRoot(s.left);
+        return right;
+    }
+
+    /**
+     * Returns the entries with from &lt;= key &lt; to in ascending key order.
+     * Only the subtrees that can contain keys in range are visited, so a query
+     * runs in O(log n + k) for k entries in range.
+     * @param from lower bound (inclusive), null = unbounded.
+     * @param to upper bound (exclusive), null = unbounded.
+     * @return list of the entries in range.
+     */
+    public List<Entry<K, V>> range(K from, K to) {
+        List<Entry<K, V>> res = new ArrayList<>();
+        rangeR(root, from, to, res);
+        return res;
+    }
+
+    private void rangeR(Node<K, V> p, K from, K to, List<Entry<K, V>> res) {
+        if (p == null) {
+            return;
+        }
+        boolean aboveFrom = from == null || p.key.compareTo(from) > 0;
+        boolean belowTo = to == null || p.key.compareTo(to) < 0;
+        if (aboveFrom) {  // links können noch Schlüssel >= from liegen
+            rangeR(p.left, from, to, res);
+        }
+        if (belowTo && (aboveFrom || p.key.compareTo(from) == 0)) {
+            res.add(new Entry<K, V>(p.key, p.value));
+        }
+        if (belowTo) {  // rechts können noch Schlüssel < to liegen
+            rangeR(p.right, from, to, res);
+        }
+    }
+
+    /**
+     * Joins left, the entry (key, value) and right into one dictionary.
+     * All keys of left must be less than key and all keys of right must be greater than key.
+     * left and right are empty afterwards. Runs in O(|height(left) - height(right)| + 1).
+     * @param left dictionary with keys less than key.
+     * @param key key of the middle entry.
+     * @param value value of the middle entry.
+     * @param right dictionary with keys greater than key.
+     * @return dictionary with all entries of left, (key, value) and right.
+     * @throws IllegalArgumentException if the keys are not ordered as required.
+     */
+    public static <K extends Comparable<? super K>, V> BinaryTreeDictionary<K, V> join(
+            BinaryTreeDictionary<K, V> left, K key, V value, BinaryTreeDictionary<K, V> right) {
+        if ((left.root != null && key.compareTo(rightMostDescendant(left.root).key) <= 0)
+                || (right.root != null && key.compareTo(right.leftMostDescendant(right.root).key) >= 0)) {
+            throw new IllegalArgumentException("keys of left < key < keys of right required");
+        }
+        BinaryTreeDictionary<K, V> res = new BinaryTreeDictionary<>();
+        res.setRoot(join(left.root, new Node<>(key, value), right.root));
+        left.setRoot(null);
+        right.setRoot(null);
+        return res;
+    }
+
+    /**
+     * Adds all entries of other to this dictionary.
+     * For keys contained in both dictionaries the value of other is taken.
+     * other is not modified. With m &lt;= n the work is O(m log(n/m + 1));
+     * the recursion runs in parallel on the common ForkJoinPool.
+     * @param other dictionary to be merged into this one.
+     */
+    public void union(BinaryTreeDictionary<K, V> other) {
+        setRoot(ForkJoinPool.commonPool().invoke(new SetOperation<>(SetOperation.UNION, root, other.root)));
+    }
+
+    /**
+     * Removes all entries from this dictionary whose keys are not contained in other.
+     * other is not modified. Runs in parallel like {@link #union}.
+     * @param other dictionary whose keys are retained.
+     */
+    public void intersection(BinaryTreeDictionary<K, V> other) {
+        setRoot(ForkJoinPool.commonPool().invoke(new SetOperation<>(SetOperation.INTERSECTION, root, other.root)));
+    }
+
+    /**
+     * Removes all entries from this dictionary whose keys are contained in other.
+     * other is not modified. Runs in parallel like {@link #union}.
+     * @param other dictionary whose keys are removed.
+     */
+    public void difference(BinaryTreeDictionary<K, V> other) {
+        setRoot(ForkJoinPool.commonPool().invoke(new SetOperation<>(SetOperation.DIFFERENCE, root, other.root)));
+    }
+
+    private void setRoot(Node<K, V> p) {
+        root = p;
+        if (root != null) {
+            root.parent = null;
+        }
+        size = getWeight(root);
+    }
+
+    /** Hängt l und r als Kinder an m und aktualisiert Höhe, Gewicht und Elternzeiger. */
+    private static <K, V> Node<K, V> link(Node<K, V> l, Node<K, V> m, Node<K, V> r) {
+        m.left = l;
+        m.right = r;
+        if (l != null) l.parent = m;
+        if (r != null) r.parent = m;
+        m.height = Math.max(height(l), height(r)) + 1;
+        m.weight = getWeight(l) + getWeight(r) + 1;
+        return m;
+    }
+
+    private static int height(Node<?, ?> p) {
+        return p == null ? -1 : p.height;
+    }
+
+    /** Verbindet l, Knoten m und r (Schlüssel von l &lt; m &lt; Schlüssel von r) zu einem AVL-Baum. */
+    private static <K, V> Node<K, V> join(Node<K, V> l, Node<K, V> m, Node<K, V> r) {
+        if (height(l) > height(r) + 1) {
+            return joinRight(l, m, r);
+        } else if (height(r) > height(l) + 1) {
+            return joinLeft(l, m, r);
+        } else {
+            return link(l, m, r);
+        }
+    }
+
+    // steige am rechten Rand von l ab, bis der Teilbaum passt, und balanciere wie beim Einfügen
+    private static <K, V> Node<K, V> joinRight(Node<K, V> l, Node<K, V> m, Node<K, V> r) {
+        if (height(l) <= height(r) + 1) {
+            return link(l, m, r);
+        }
+        return rebalance(link(l.left, l, joinRight(l.right, m, r)));
+    }
+
+    private static <K, V> Node<K, V> joinLeft(Node<K, V> l, Node<K, V> m, Node<K, V> r) {
+        if (height(r) <= height(l) + 1) {
+            return link(l, m, r);
+        }
+        return rebalance(link(joinLeft(l, m, r.left), r, r.right));
+    }
+
+    /** Verbindet l und r (Schlüssel von l &lt; Schlüssel von r) ohne mittleren Knoten. */
+    private static <K, V> Node<K, V> join2(Node<K, V> l, Node<K, V> r) {
+        if (l == null) return r;
+        if (r == null) return l;
+        Split<K, V> s = new Split<>();
+        Node<K, V> rest = splitLast(l, s);
+        return join(rest, s.found, r);
+    }
+
+    /** Hängt den größten Knoten von p aus und speichert ihn in s.found. */
+    private static <K, V> Node<K, V> splitLast(Node<K, V> p, Split<K, V> s) {
+        if (p.right == null) {
+            s.found = p;
+            return p.left;
+        }
+        return rebalance(link(p.left, p, splitLast(p.right, s)));
+    }
+
+    private static <K, V> Node<K, V> rebalance(Node<K, V> p) {
+        int bal = height(p.right) - height(p.left);
+        if (bal < -1) {
+            Node<K, V> q = p.left;
+            if (height(q.right) > height(q.left)) {  // Fall A2
+                Node<K, V> c = q.right;
+                return link(link(q.left, q, c.left), c, link(c.right, p, p.right));
+            }
+            return link(q.left, q, link(q.right, p, p.right));  // Fall A1
+        } else if (bal > 1) {
+            Node<K, V> q = p.right;
+            if (height(q.left) > height(q.right)) {  // Fall B2
+                Node<K, V> c = q.left;
+                return link(link(p.left, p, c.left), c, link(c.right, q, q.right));
+            }
+            return link(link(p.left, p, q.left), q, q.right);  // Fall B1
+        }
+        return p;
+    }
+
+    private static class Split<K, V> {
+        Node<K, V> left;
+        Node<K, V> found;  // Knoten mit dem Split-Schlüssel oder null
+        Node<K, V> right;
+    }
+
+    /** Zerlegt p in Schlüssel &lt; key, Knoten mit key und Schlüssel &gt; key. */
+    private static <K extends Comparable<? super K>, V> Split<K, V> splitR(Node<K, V> p, K key) {
+        if (p == null) {
+            return new Split<>();
+        }
+        Node<K, V> l = p.left;
+        Node<K, V> r = p.right;
+        int c = key.compareTo(p.key);
+        Split<K, V> s;
+        if (c < 0) {
+            s = splitR(l, key);
+            s.right = join(s.right, p, r);
+        } else if (c > 0) {
+            s = splitR(r, key);
+            s.left = join(l, p, s.left);
+        } else {
+            s = new Split<>();
+            s.left = l;
+            s.found = p;
+            s.right = r;
+        }
+        if (s.left != null) s.left.parent = null;
+        if (s.right != null) s.right.parent = null;
+        return s;
+    }
+
+    private static <K, V> Node<K, V> copy(Node<K, V> p) {
+        if (p == null) {
+            return null;
+        }
+        return link(copy(p.left), new Node<>(p.key, p.value), copy(p.right));
+    }
+
+    /**
+     * Rekursive Mengenoperation auf zwei Teilbäumen.
+     * t1 wird zerlegt und wiederverwendet, t2 wird nur gelesen.
+     * Große Teilprobleme werden parallel bearbeitet.
+     */
+    private static class SetOperation<K extends Comparable<? super K>, V> extends RecursiveTask<Node<K, V>> {
+        private static final long serialVersionUID = 1L;
+        static final int UNION = 0;
+        static final int INTERSECTION = 1;
+        static final int DIFFERENCE = 2;
+        static final int PARALLEL_HEIGHT = 10;  // kleinere Teilbäume sequentiell
+
+        private final int op;
+        private final Node<K, V> t1;
+        private final Node<K, V> t2;
+
+        SetOperation(int op, Node<K, V> t1, Node<K, V> t2) {
+            this.op = op;
+            this.t1 = t1;
+            this.t2 = t2;
+        }
+
+        @Override
+        protected Node<K, V> compute() {
+            if (t1 == null) {
+                return op == UNION ? copy(t2) : null;
+            }
+            if (t2 == null) {
+                return op == INTERSECTION ? null : t1;
+            }
+            Split<K, V> s = splitR(t1, t2.key);
+            SetOperation<K, V> left = new SetOperation<>(op, s.left, t2.left);
+            SetOperation<K, V> right = new SetOperation<>(op, s.right, t2.right);
+            Node<K, V> l;
+            Node<K, V> r;
+            if (Math.min(height(t1), height(t2)) >= PARALLEL_HEIGHT) {
+                left.fork();
+                r = right.compute();
+                l = left.join();
+            } else {
+                l = left.compute();
+                r = right.compute();
+            }
+            switch (op) {
+                case UNION:  // Wert aus t2 gewinnt
+                    return BinaryTreeDictionary.join(l, new Node<>(t2.key, t2.value), r);
+                case INTERSECTION:
+                    return s.found != null ? BinaryTreeDictionary.join(l, s.found, r) : join2(l, r);
+                default:
+                    return join2(l, r);
+            }
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of this dictionary (see DictionarySnapshot).
+     * @param file target file, will be overwritten.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @throws IOException if the file cannot be written.
+     */
+    public void snapshot(Path file, DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            snapshot(out, kc, vc);
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of this dictionary to out (see DictionarySnapshot).
+     * @param out target stream, is flushed but not closed.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void snapshot(OutputStream out, DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        DictionarySnapshot.write(out, this, kc, vc, DictionarySnapshot.SORTED);
+    }
+
+    /**
+     * Restores a dictionary from a snapshot file.
+     * @param file snapshot file.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @return restored dictionary.
+     * @throws IOException if the file cannot be read or is no valid snapshot.
+     */
+    public static <K extends Comparable<? super K>, V> BinaryTreeDictionary<K, V> restore(Path file,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return restore(in, kc, vc);
+        }
+    }
+
+    /**
+     * Restores a dictionary from a snapshot stream without rotations:
+     * the sorted entries are linked bottom-up into a perfectly balanced tree in O(n).
+     * Unsorted snapshots are sorted once before.
+     * @param in snapshot stream, is not closed.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @return restored dictionary.
+     * @throws IOException if the stream cannot be read or is no valid snapshot.
+     */
+    public static <K extends Comparable<? super K>, V> BinaryTreeDictionary<K, V> restore(InputStream in,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        DictionarySnapshot.Reader<K, V> rd = new DictionarySnapshot.Reader<>(in, kc, vc);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry<K, V>[] entries = new Entry[rd.size];
+        for (int i = 0; i < rd.size; i++) {
+            entries[i] = rd.entry();
+        }
+        if (!rd.sorted) {
+            Arrays.sort(entries, (a, b) -> a.getKey().compareTo(b.getKey()));
+        }
+        for (int i = 1; i < entries.length; i++) {
+            if (entries[i - 1].getKey().compareTo(entries[i].getKey()) >= 0) {
+                throw new IOException("duplicate or unordered key in snapshot: " + entries[i].getKey());
+            }
+        }
+        return ofSorted(entries);
+    }
+
+    /* Baut aus den aufsteigend sortierten entries einen vollständig balancierten Baum in O(n) */
+    static <K extends Comparable<? super K>, V> BinaryTreeDictionary<K, V> ofSorted(Entry<K, V>[] entries) {
+        BinaryTreeDictionary<K, V> dict = new BinaryTreeDictionary<>();
+        dict.setRoot(buildR(entries, 0, entries.length - 1));
+        return dict;
+    }
+
+    private static <K, V> Node<K, V> buildR(Entry<K, V>[] entries, int li, int re) {
+        if (li > re) {  // leerer Teilbaum
+            return null;
+        }
+        int m = (li + re) >>> 1;  // mittleren Eintrag als Wurzel nehmen
+        Node<K, V> left = buildR(entries, li, m - 1);
+        Node<K, V> right = buildR(entries, m + 1, re);
+        return link(left, new Node<>(entries[m].getKey(), entries[m].getValue()), right);
+    }
+
     @Override
     public Iterator<Entry<K, V>> iterator() {
         return new Iterator<Entry<K, V>>() {
 
-            private Node<K, V> current = null;
+            private Node<K, V> current = (root == null) ? null : leftMostDescendant(root);  // nächster Knoten
 
             @Override
             public boolean hasNext() {
-                if (current == null) {  // Knoten hat keine Kinder
-                    current = leftMostDescendant(root);
-                } else if (current.right != null) {  // Knoten hat rechtes Kind
-                    current = leftMostDescendant(current.right);
-                } else {
-                    current = parentOfLeftMostAncestor(current);
-                }
-                return current == null ? false : true;
+                return current != null;
             }
 
             @Override
             public Entry<K, V> next() {
+                if (current == null) {
+                    throw new NoSuchElementException();
+                }
                 Entry<K, V> element = new Entry<K, V>(current.key, current.value);
+                if (current.right != null) {  // Knoten hat rechtes Kind
+                    current = leftMostDescendant(current.right);
+                } else {
+                    current = parentOfLeftMostAncestor(current);
+                }
                 return element;
             }
         };
@@ -219,6 +620,13 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         }
         return p;
     }
+    private static <K, V> Node<K, V> rightMostDescendant(Node<K, V> p) {
+        assert p != null;
+        while (p.right != null) {
+            p = p.right;
+        }
+        return p;
+    }
     private Node<K,V> parentOfLeftMostAncestor(Node<K, V> p) {
         assert p != null;
         while (p.parent != null && p.parent.right == p) {
@@ -231,6 +639,7 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
         K key;
         V value;
         int height;
+        int weight;  // Anzahl Knoten im Teilbaum
         Node<K, V> left;
         Node<K, V> right;
         Node<K, V> parent;
@@ -239,6 +648,7 @@ public class BinaryTreeDictionary<K extends Comparable<? super K>, V> implements
             key = k;
             value = v;
             height = 0;
+            weight = 1;
             left = null;
             right = null;
             parent = null;
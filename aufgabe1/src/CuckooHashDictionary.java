@@ -0,0 +1,354 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of the Dictionary interface as bucketized cuckoo hash table.
+ * <p>
+ * Every key has two candidate buckets with 4 slots each, so a search inspects
+ * at most 8 slots (plus a small stash that is almost always empty).
+ * The slots of a bucket are stored next to each other; the cached hash codes
+ * of one bucket fit into 16 bytes, so a lookup touches at most two cache lines
+ * before the first equals call.
+ * <p>
+ * The first bucket is taken from the low bits of the mixed hash code, the second from
+ * a second mix of all 32 bits with a seed, so the two are independent at every table size.
+ * <p>
+ * An insert that finds both buckets full kicks out a resident entry to its
+ * alternative bucket. The kick-out path is bounded by MAX_KICKS; an entry that
+ * is still homeless afterwards is put into the stash of STASH_SIZE entries. If the
+ * stash is full too, the table is doubled if it is at least half full, otherwise it is
+ * rebuilt at the same size with a new seed. Keys with equal hash codes share both
+ * buckets for every seed; once MAX_REHASHES rebuilds have not helped, further homeless
+ * entries go to an overflow tree (as the tree bins of HashDictionary), so neither the
+ * stash nor the table grows without bound.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class CuckooHashDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private static final int SLOTS = 4;  // Slots pro Bucket
+    private static final int MAX_KICKS = 128;  // max. Länge des Verdrängungspfads
+    private static final int STASH_SIZE = 8;
+    private static final int MAX_REHASHES = 2;  // Neuaufbauten mit neuem Seed je Tabellengröße
+    private static final int DEF_BUCKETS = 8;
+
+    private Object[] keys;
+    private Object[] values;
+    private int[] hashes;  // gespeicherte Hashwerte, 0 = Slot frei
+    private int mask;  // Anzahl Buckets - 1 (Zweierpotenz)
+
+    private final Object[] stashKeys = new Object[STASH_SIZE];
+    private final Object[] stashValues = new Object[STASH_SIZE];
+    private int stashSize = 0;
+    private BinaryTreeDictionary<K, V> overflow;  // null, solange kein Eintrag übergelaufen ist
+
+    private int size = 0;
+    private int seed = 0x9E3779B9;  // Zustand für die Wahl des Opfers beim Verdrängen
+    private int hashSeed = 0;  // Seed von bucket2, wird beim Neuaufbau gewechselt
+    private int rehashes = 0;  // Neuaufbauten seit der letzten Vergrößerung
+
+    public CuckooHashDictionary() {
+        this(DEF_BUCKETS * SLOTS);
+    }
+
+    /**
+     * Creates an empty dictionary that can hold about capacity entries without growing.
+     * @param capacity expected number of entries.
+     */
+    public CuckooHashDictionary(int capacity) {
+        int buckets = DEF_BUCKETS;
+        while (buckets * SLOTS * 9 / 10 < capacity) {
+            buckets *= 2;
+        }
+        allocate(buckets);
+    }
+
+    private void allocate(int buckets) {
+        keys = new Object[buckets * SLOTS];
+        values = new Object[buckets * SLOTS];
+        hashes = new int[buckets * SLOTS];
+        mask = buckets - 1;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85EBCA6B;
+        h ^= h >>> 13;
+        return h == 0 ? 1 : h;  // 0 markiert freie Slots
+    }
+
+    private int bucket1(int h) {
+        return h & mask;
+    }
+
+    private int bucket2(int h) {
+        int b = (h ^ hashSeed) * 0xCC9E2D51;  // zweite Mischung aller 32 Bit, von bucket1 unabhängig
+        b ^= b >>> 15;
+        b *= 0x1B873593;
+        b ^= b >>> 16;
+        return b & mask;
+    }
+
+    private int alternative(int h, int b) {
+        int b1 = bucket1(h);
+        return b == b1 ? bucket2(h) : b1;
+    }
+
+    /** Liefert den Slot-Index von key oder -1. */
+    private int findSlot(Object key, int h) {
+        int i = bucket1(h) * SLOTS;
+        for (int j = i; j < i + SLOTS; j++) {
+            if (hashes[j] == h && keys[j].equals(key)) return j;
+        }
+        i = bucket2(h) * SLOTS;
+        for (int j = i; j < i + SLOTS; j++) {
+            if (hashes[j] == h && keys[j].equals(key)) return j;
+        }
+        return -1;
+    }
+
+    private int findStash(Object key) {
+        for (int i = 0; i < stashSize; i++) {
+            if (stashKeys[i].equals(key)) return i;
+        }
+        return -1;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int h = hash(key);
+        int j = findSlot(key, h);
+        if (j >= 0) {
+            return (V) values[j];
+        }
+        if (stashSize > 0) {
+            j = findStash(key);
+            if (j >= 0) return (V) stashValues[j];
+        }
+        return overflow == null ? null : overflow.search(key);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        int h = hash(key);
+        int j = findSlot(key, h);
+        if (j >= 0) {  // Schlüssel vorhanden, Wert ersetzen
+            V old = (V) values[j];
+            values[j] = value;
+            return old;
+        }
+        if (stashSize > 0 && (j = findStash(key)) >= 0) {
+            V old = (V) stashValues[j];
+            stashValues[j] = value;
+            return old;
+        }
+        if (overflow != null) {  // vorhandenen Schlüssel im Überlauf-Baum ersetzen, neuen wieder entfernen
+            int before = overflow.size();
+            V old = overflow.insert(key, value);
+            if (overflow.size() == before) {
+                return old;
+            }
+            overflow.remove(key);
+        }
+        put(key, value, h);
+        size++;
+        return null;
+    }
+
+    /** Fügt einen sicher neuen Schlüssel ein, vergrößert die Tabelle falls nötig. */
+    @SuppressWarnings("unchecked")
+    private void put(Object key, Object value, int h) {
+        if (putInBucket(bucket1(h), key, value, h) || putInBucket(bucket2(h), key, value, h)) {
+            return;
+        }
+        // beide Buckets voll: Verdrängungspfad
+        int b = (seed & 1) == 0 ? bucket1(h) : bucket2(h);
+        for (int kick = 0; kick < MAX_KICKS; kick++) {
+            seed ^= seed << 13;
+            seed ^= seed >>> 17;
+            seed ^= seed << 5;
+            int victim = b * SLOTS + (seed & (SLOTS - 1));
+            Object k = keys[victim];
+            Object v = values[victim];
+            int vh = hashes[victim];
+            keys[victim] = key;
+            values[victim] = value;
+            hashes[victim] = h;
+            key = k;
+            value = v;
+            h = vh;
+            b = alternative(h, b);
+            if (putInBucket(b, key, value, h)) {
+                return;
+            }
+        }
+        if (stashSize < STASH_SIZE) {  // heimatloser Eintrag kommt in den Stash
+            stashKeys[stashSize] = key;
+            stashValues[stashSize] = value;
+            stashSize++;
+            return;
+        }
+        // Stash voll: verdrängten Eintrag nach dem Neuaufbau erneut einfügen
+        if (2 * size >= hashes.length) {
+            rehashes = 0;
+            rebuild((mask + 1) * 2);
+            put(key, value, h);
+        } else if (rehashes < MAX_REHASHES) {
+            rehashes++;
+            rebuild(mask + 1);
+            put(key, value, h);
+        } else {  // auch ein neuer Seed hilft nicht (gleiche Hashwerte): Überlauf-Baum
+            if (overflow == null) {
+                overflow = new BinaryTreeDictionary<>();
+            }
+            overflow.insert((K) key, (V) value);
+        }
+    }
+
+    private boolean putInBucket(int b, Object key, Object value, int h) {
+        int i = b * SLOTS;
+        for (int j = i; j < i + SLOTS; j++) {
+            if (hashes[j] == 0) {
+                keys[j] = key;
+                values[j] = value;
+                hashes[j] = h;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /** Baut die Tabelle mit buckets Buckets und einem neuen Seed für bucket2 neu auf. */
+    private void rebuild(int buckets) {
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        int[] oldHashes = hashes;
+        Object[] sk = Arrays.copyOf(stashKeys, stashSize);
+        Object[] sv = Arrays.copyOf(stashValues, stashSize);
+        BinaryTreeDictionary<K, V> oldOverflow = overflow;
+
+        allocate(buckets);
+        seed ^= seed << 13;
+        seed ^= seed >>> 17;
+        seed ^= seed << 5;
+        hashSeed = seed;
+        Arrays.fill(stashKeys, null);
+        Arrays.fill(stashValues, null);
+        stashSize = 0;
+        overflow = null;
+
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldHashes[j] != 0) {
+                put(oldKeys[j], oldValues[j], oldHashes[j]);
+            }
+        }
+        for (int j = 0; j < sk.length; j++) {
+            put(sk[j], sv[j], hash(sk[j]));
+        }
+        if (oldOverflow != null) {
+            for (Entry<K, V> e : oldOverflow) {
+                put(e.getKey(), e.getValue(), hash(e.getKey()));
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int h = hash(key);
+        int j = findSlot(key, h);
+        if (j >= 0) {
+            V old = (V) values[j];
+            keys[j] = null;
+            values[j] = null;
+            hashes[j] = 0;
+            size--;
+            return old;
+        }
+        if (stashSize > 0 && (j = findStash(key)) >= 0) {
+            V old = (V) stashValues[j];
+            stashSize--;
+            stashKeys[j] = stashKeys[stashSize];
+            stashValues[j] = stashValues[stashSize];
+            stashKeys[stashSize] = null;
+            stashValues[stashSize] = null;
+            size--;
+            return old;
+        }
+        if (overflow != null) {
+            int before = overflow.size();
+            V old = overflow.remove(key);
+            if (overflow.size() < before) {
+                size--;
+                if (overflow.size() == 0) {
+                    overflow = null;
+                }
+            }
+            return old;
+        }
+        return null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /** Anzahl der Slots der Tabelle (ohne Stash). */
+    int capacity() {
+        return hashes.length;
+    }
+
+    /** Anzahl der Einträge im Stash. */
+    int stashSize() {
+        return stashSize;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+
+            private int current = -1;  // Index in Tabelle, danach im Stash, danach im Überlauf-Baum
+            private int stash = 0;
+            private final Iterator<Entry<K, V>> rest = overflow == null ? null : overflow.iterator();
+
+            {
+                advance();
+            }
+
+            private void advance() {
+                while (++current < hashes.length && hashes[current] == 0) {
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return current < hashes.length || stash < stashSize || (rest != null && rest.hasNext());
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Entry<K, V> e;
+                if (current < hashes.length) {
+                    e = new Entry<>((K) keys[current], (V) values[current]);
+                    advance();
+                } else if (stash < stashSize) {
+                    e = new Entry<>((K) stashKeys[stash], (V) stashValues[stash]);
+                    stash++;
+                } else {
+                    e = rest.next();
+                }
+                return e;
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Lookup latency benchmark for the Dictionary implementations.
+ * <p>
+ * Loads a word list (default dtengl.txt), then times every single search
+ * and prints the latency percentiles per implementation. Finally the search trees
+ * are compared under a remove/insert churn workload.
+ * Usage: java DictionaryBenchmark [file] [lookups]
+ */
+public class DictionaryBenchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int CHURN_SIZE = 100_000;
+
+    private DictionaryBenchmark() {}
+
+    public static void main(String[] args) throws IOException {
+        String file = args.length > 0 ? args[0] : "dtengl.txt";
+        int lookups = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+
+        List<String[]> words = readWords(file);
+        String[] queries = queries(words, lookups);
+
+        run("HashDictionary", new HashDictionary<>(3), words, queries);
+        run("CuckooHashDictionary", new CuckooHashDictionary<>(), words, queries);
+        run("SwissHashDictionary", new SwissHashDictionary<>(), words, queries);
+
+        // Kollisionsangriff: alle Schlüssel haben denselben hashCode
+        List<String[]> colliding = new ArrayList<>();
+        for (String k : collidingKeys(13)) {
+            colliding.add(new String[] {k, k});
+        }
+        String[] collidingQueries = queries(colliding, lookups / 10);
+        memory(words);
+
+        run("HashDictionary (colliding)", new HashDictionary<>(3), colliding, collidingQueries);
+        run("HashDictionary treeify (colliding)", new HashDictionary<>(3, true), colliding, collidingQueries);
+
+        // Änderungslast auf Suchbäumen
+        churn("BinaryTreeDictionary (AVL) churn", new BinaryTreeDictionary<>(), CHURN_SIZE, lookups);
+        churn("ArrayTreeDictionary (AVL) churn", new ArrayTreeDictionary<>(), CHURN_SIZE, lookups);
+        RedBlackTreeDictionary<Integer, Integer> rb = new RedBlackTreeDictionary<>();
+        churn("RedBlackTreeDictionary churn", rb, CHURN_SIZE, lookups);
+        System.out.printf("%-36s %.2f rotations/update%n", "", (double) rb.rotations() / (CHURN_SIZE + 2L * lookups * (WARMUP_ROUNDS + 1)));
+    }
+
+    /**
+     * Fills dict with n random keys, then alternately removes a random contained key
+     * and inserts a new one, and prints the latency per update (remove or insert).
+     */
+    private static void churn(String name, Dictionary<Integer, Integer> dict, int n, int updates) {
+        Random rnd = new Random(7);
+        int[] keys = new int[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = rnd.nextInt();
+            dict.insert(keys[i], i);
+        }
+        long[] lat = new long[2 * updates];
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {  // letzte Runde wird gemessen
+            for (int i = 0; i < updates; i++) {
+                int j = rnd.nextInt(n);
+                long start = System.nanoTime();
+                dict.remove(keys[j]);
+                long mid = System.nanoTime();
+                keys[j] = rnd.nextInt();
+                dict.insert(keys[j], i);
+                lat[2 * i] = mid - start;
+                lat[2 * i + 1] = System.nanoTime() - mid;
+            }
+        }
+        report(name, lat);
+    }
+
+    /**
+     * Returns 2^bits different strings with the same hashCode,
+     * built from the blocks "Aa" and "BB" which have equal hash codes.
+     */
+    static String[] collidingKeys(int bits) {
+        String[] keys = new String[1 << bits];
+        for (int i = 0; i < keys.length; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int b = 0; b < bits; b++) {
+                sb.append((i >>> b & 1) == 0 ? "Aa" : "BB");
+            }
+            keys[i] = sb.toString();
+        }
+        return keys;
+    }
+
+    /** Speicherbedarf für Suchen in beide Richtungen: zwei Dictionaries gegen ein bidirektionales. */
+    private static void memory(List<String[]> words) {
+        long base = usedHeap();
+        Dictionary<String, String> forward = new HashDictionary<>(3);
+        Dictionary<String, String> backward = new HashDictionary<>(3);
+        for (String[] e : words) {
+            forward.insert(e[0], e[1]);
+            backward.insert(e[1], e[0]);
+        }
+        long two = usedHeap() - base;
+        forward = null;
+        backward = null;
+
+        base = usedHeap();
+        BidirectionalDictionary<String, String> bidi = new BidirectionalDictionary<>();
+        for (String[] e : words) {
+            bidi.insert(e[0], e[1]);
+        }
+        long one = usedHeap() - base;
+        System.out.printf("%-36s %dKB%n%-36s %dKB (size %d)%n", "2x HashDictionary (both directions)", two / 1024,
+                "BidirectionalDictionary", one / 1024, bidi.size());
+    }
+
+    private static long usedHeap() {
+        Runtime rt = Runtime.getRuntime();
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return rt.totalMemory() - rt.freeMemory();
+    }
+
+    static List<String[]> readWords(String file) throws IOException {
+        List<String[]> words = new ArrayList<>();
+        try (BufferedReader rd = new BufferedReader(new FileReader(file))) {
+            String line;
+            while ((line = rd.readLine()) != null) {
+                String[] entry = line.split(" ");
+                if (entry.length >= 2) {
+                    words.add(entry);
+                }
+            }
+        }
+        return words;
+    }
+
+    /** Zufällige Suchanfragen, davon ca. 10% Fehlschläge. */
+    static String[] queries(List<String[]> words, int n) {
+        Random rnd = new Random(42);
+        String[] q = new String[n];
+        for (int i = 0; i < n; i++) {
+            String w = words.get(rnd.nextInt(words.size()))[0];
+            q[i] = rnd.nextInt(10) == 0 ? w + "#" : new String(w);
+        }
+        return q;
+    }
+
+    private static void run(String name, Dictionary<String, String> dict, List<String[]> words, String[] queries) {
+        for (String[] e : words) {
+            dict.insert(e[0], e[1]);
+        }
+        long[] lat = new long[queries.length];
+        for (int round = 0; round <= WARMUP_ROUNDS; round++) {  // letzte Runde wird gemessen
+            for (int i = 0; i < queries.length; i++) {
+                long start = System.nanoTime();
+                dict.search(queries[i]);
+                lat[i] = System.nanoTime() - start;
+            }
+        }
+        report(name, lat);
+    }
+
+    static void report(String name, long[] lat) {
+        long[] sorted = lat.clone();
+        Arrays.sort(sorted);
+        System.out.printf("%-36s n=%d  p50=%dns  p99=%dns  p999=%dns  max=%dns%n", name, sorted.length,
+                percentile(sorted, 50), percentile(sorted, 99), percentile(sorted, 99.9), sorted[sorted.length - 1]);
+    }
+
+    static long percentile(long[] sorted, double p) {
+        int i = (int) Math.ceil(p / 100 * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(i, sorted.length - 1))];
+    }
+}
@@ -0,0 +1,256 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+
+/**
+ * Client for a DictionaryServer on the same machine; implements Dictionary, so it can
+ * be used wherever a local dictionary is expected.
+ * <p>
+ * Requests are pipelined: the asynchronous methods send a request and return at once,
+ * a reader thread completes the futures in the order of the responses. The synchronous
+ * Dictionary methods send a request and wait for its response. The client may be
+ * used by several threads.
+ */
+public class DictionaryClient implements Dictionary<String, String>, Closeable {
+
+    private final Socket socket;
+    private final DataOutputStream out;
+    private final DataInputStream in;
+    private final ArrayDeque<Pending> pending = new ArrayDeque<>();
+    private final Thread reader;
+    private int nextId = 0;
+    private IOException failure = null;  // geschützt durch pending
+
+    private static final class Pending {
+        final int id;
+        final byte op;
+        final CompletableFuture<Object> result = new CompletableFuture<>();
+
+        Pending(int id, byte op) {
+            this.id = id;
+            this.op = op;
+        }
+    }
+
+    /**
+     * Connects to a server on the loopback interface.
+     * @param port port of the server.
+     * @throws IOException if the connection fails.
+     */
+    public DictionaryClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        socket.setTcpNoDelay(true);
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream(), 1 << 14));
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream(), 1 << 14));
+        reader = new Thread(this::readResponses, "dictionary-client");
+        reader.setDaemon(true);
+        reader.start();
+    }
+
+    private interface Body {
+        void write(DataOutputStream out) throws IOException;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompletableFuture<T> send(byte op, int bodyLength, Body body) {
+        synchronized (out) {
+            Pending p = new Pending(nextId++, op);
+            synchronized (pending) {  // vor dem Schreiben, der Leser darf nie auf out warten
+                if (failure != null) {
+                    return CompletableFuture.failedFuture(new UncheckedIOException(failure));
+                }
+                pending.add(p);
+            }
+            try {
+                out.writeInt(4 + 1 + bodyLength);
+                out.writeInt(p.id);
+                out.writeByte(op);
+                body.write(out);
+                out.flush();
+            } catch (IOException e) {
+                fail(e);
+            }
+            return (CompletableFuture<T>) p.result;
+        }
+    }
+
+    private static byte[] utf8(String s) {
+        return s.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void writeString(DataOutputStream out, byte[] b) throws IOException {
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    public CompletableFuture<String> searchAsync(String key) {
+        byte[] k = utf8(key);
+        return send(DictionaryServer.SEARCH, 4 + k.length, o -> writeString(o, k));
+    }
+
+    public CompletableFuture<String> insertAsync(String key, String value) {
+        byte[] k = utf8(key);
+        byte[] v = utf8(value);
+        return send(DictionaryServer.INSERT, 8 + k.length + v.length, o -> {
+            writeString(o, k);
+            writeString(o, v);
+        });
+    }
+
+    public CompletableFuture<String> removeAsync(String key) {
+        byte[] k = utf8(key);
+        return send(DictionaryServer.REMOVE, 4 + k.length, o -> writeString(o, k));
+    }
+
+    /**
+     * Searches several keys with one request.
+     * @param keys keys to be searched.
+     * @return future of the values in the order of keys (null if not contained).
+     */
+    public CompletableFuture<List<String>> searchAllAsync(List<String> keys) {
+        List<byte[]> k = new ArrayList<>(keys.size());
+        int len = 4;
+        for (String key : keys) {
+            byte[] b = utf8(key);
+            k.add(b);
+            len += 4 + b.length;
+        }
+        return send(DictionaryServer.SEARCH_BATCH, len, o -> {
+            o.writeInt(k.size());
+            for (byte[] b : k) {
+                writeString(o, b);
+            }
+        });
+    }
+
+    private void readResponses() {
+        try {
+            while (true) {
+                int len = in.readInt();
+                int id = in.readInt();
+                byte status = in.readByte();
+                Pending p;
+                synchronized (pending) {
+                    p = pending.poll();
+                }
+                if (p == null || p.id != id || len < 5) {
+                    throw new IOException("unexpected response " + id);
+                }
+                if (status != DictionaryServer.OK) {
+                    p.result.completeExceptionally(new IllegalStateException("server: " + readString()));
+                    continue;
+                }
+                p.result.complete(readResult(p.op));
+            }
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private Object readResult(byte op) throws IOException {
+        switch (op) {
+            case DictionaryServer.SIZE:
+                return in.readInt();
+            case DictionaryServer.SEARCH_BATCH:
+                int n = in.readInt();
+                List<String> values = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) {
+                    values.add(readString());
+                }
+                return values;
+            case DictionaryServer.ENTRIES:
+                int m = in.readInt();
+                List<Entry<String, String>> entries = new ArrayList<>(m);
+                for (int i = 0; i < m; i++) {
+                    String k = readString();
+                    entries.add(new Entry<>(k, readString()));
+                }
+                return entries;
+            default:
+                return readString();
+        }
+    }
+
+    private String readString() throws IOException {
+        int len = in.readInt();
+        if (len < 0) {
+            return null;
+        }
+        byte[] b = new byte[len];
+        in.readFully(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    private void fail(IOException e) {
+        synchronized (pending) {
+            if (failure == null) {
+                failure = e;
+            }
+            for (Pending p : pending) {
+                p.result.completeExceptionally(new UncheckedIOException(e));
+            }
+            pending.clear();
+        }
+    }
+
+    private static <T> T await(CompletableFuture<T> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public String insert(String key, String value) {
+        return await(insertAsync(key, value));
+    }
+
+    @Override
+    public String search(String key) {
+        return await(searchAsync(key));
+    }
+
+    @Override
+    public String remove(String key) {
+        return await(removeAsync(key));
+    }
+
+    @Override
+    public int size() {
+        return await(this.<Integer>send(DictionaryServer.SIZE, 0, o -> { }));
+    }
+
+    /** Returns an iterator over a copy of all entries, fetched with one request. */
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return await(this.<List<Entry<String, String>>>send(DictionaryServer.ENTRIES, 0, o -> { })).iterator();
+    }
+
+    /** Closes the connection; pending requests fail. */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+        try {
+            reader.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,209 @@
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Streaming export of any Dictionary to a file or channel.
+ * <p>
+ * The entries are encoded directly into a large direct buffer, which is written to the
+ * channel only when it is full, so a dump of millions of entries needs a few hundred
+ * write calls instead of one per entry. Two formats are supported:
+ * <ul>
+ * <li>text: one line "key value" per entry in UTF-8 (the format of dtengl.txt, so the
+ * file can be read again with the TUI command r),</li>
+ * <li>binary: the DictionarySnapshot format, which the restore methods can read.</li>
+ * </ul>
+ * In sorted order, ordered implementations are exported in their iteration order;
+ * for the others the entries are collected and sorted first.
+ */
+public final class DictionaryExport {
+
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private DictionaryExport() {}
+
+    /**
+     * Exports dict as text file.
+     * @param dict dictionary.
+     * @param file target file, will be overwritten.
+     * @param sorted true for ascending key order.
+     * @return number of bytes written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <K extends Comparable<? super K>, V> long writeText(Dictionary<K, V> dict, Path file, boolean sorted)
+            throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return writeText(dict, ch, sorted);
+        }
+    }
+
+    /**
+     * Writes dict as text, one line "key value" per entry, to a channel.
+     * @param dict dictionary.
+     * @param ch target channel, is not closed.
+     * @param sorted true for ascending key order.
+     * @return number of bytes written.
+     * @throws IOException if the channel cannot be written.
+     */
+    public static <K extends Comparable<? super K>, V> long writeText(Dictionary<K, V> dict, WritableByteChannel ch,
+            boolean sorted) throws IOException {
+        return writeText(entries(dict, sorted), ch, " ");
+    }
+
+    /** Schreibt die Einträge als Zeilen key + separator + value. */
+    static <K, V> long writeText(Iterable<Dictionary.Entry<K, V>> entries, WritableByteChannel ch, String separator)
+            throws IOException {
+        ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        CharsetEncoder enc = StandardCharsets.UTF_8.newEncoder();
+        CharBuffer sep = CharBuffer.wrap(separator);
+        CharBuffer newline = CharBuffer.wrap("\n");
+        long written = 0;
+        for (Dictionary.Entry<K, V> e : entries) {
+            written += encode(String.valueOf(e.getKey()), enc, buf, ch);
+            written += encode(sep.rewind(), enc, buf, ch);
+            written += encode(String.valueOf(e.getValue()), enc, buf, ch);
+            written += encode(newline.rewind(), enc, buf, ch);
+        }
+        return written + drain(buf, ch);
+    }
+
+    private static long encode(CharSequence s, CharsetEncoder enc, ByteBuffer buf, WritableByteChannel ch)
+            throws IOException {
+        CharBuffer in = s instanceof CharBuffer ? (CharBuffer) s : CharBuffer.wrap(s);
+        long written = 0;
+        while (true) {
+            CoderResult r = enc.encode(in, buf, true);
+            if (r.isOverflow()) {
+                written += drain(buf, ch);
+            } else if (r.isError()) {
+                r.throwException();
+            } else {
+                enc.reset();
+                return written;
+            }
+        }
+    }
+
+    /** Schreibt den Pufferinhalt in den Kanal und leert den Puffer. */
+    private static long drain(ByteBuffer buf, WritableByteChannel ch) throws IOException {
+        buf.flip();
+        long n = buf.remaining();
+        while (buf.hasRemaining()) {
+            ch.write(buf);
+        }
+        buf.clear();
+        return n;
+    }
+
+    /**
+     * Exports dict as binary snapshot file (see DictionarySnapshot).
+     * @param dict dictionary.
+     * @param file target file, will be overwritten.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @param sorted true for ascending key order (the snapshot is then marked as sorted).
+     * @return number of bytes written.
+     * @throws IOException if the file cannot be written.
+     */
+    public static <K extends Comparable<? super K>, V> long writeBinary(Dictionary<K, V> dict, Path file,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc, boolean sorted) throws IOException {
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            return writeBinary(dict, ch, kc, vc, sorted);
+        }
+    }
+
+    /**
+     * Writes dict as binary snapshot (see DictionarySnapshot) to a channel.
+     * @param dict dictionary.
+     * @param ch target channel, is not closed.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @param sorted true for ascending key order (the snapshot is then marked as sorted).
+     * @return number of bytes written.
+     * @throws IOException if the channel cannot be written.
+     */
+    public static <K extends Comparable<? super K>, V> long writeBinary(Dictionary<K, V> dict, WritableByteChannel ch,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc, boolean sorted) throws IOException {
+        ChannelOutputStream out = new ChannelOutputStream(ch);
+        DictionarySnapshot.write(out, entries(dict, sorted), dict.size(), kc, vc,
+                sorted || isOrdered(dict) ? DictionarySnapshot.SORTED : 0);
+        return out.written;
+    }
+
+    /** Liefert die Einträge in der gewünschten Reihenfolge. */
+    private static <K extends Comparable<? super K>, V> Iterable<Dictionary.Entry<K, V>> entries(Dictionary<K, V> dict,
+            boolean sorted) {
+        if (!sorted || isOrdered(dict)) {
+            return dict;
+        }
+        List<Dictionary.Entry<K, V>> list = new ArrayList<>(dict.size());
+        for (Dictionary.Entry<K, V> e : dict) {
+            list.add(e);
+        }
+        list.sort((a, b) -> a.getKey().compareTo(b.getKey()));
+        return list;
+    }
+
+    /**
+     * Implementierungen, die in aufsteigender Schlüsselreihenfolge iterieren.
+     * writeBinary schreibt dict.size() als Anzahl in den Kopf, daher muss size() genau die
+     * Einträge des Iterators zählen (bei SortedTable ohne Tombstones).
+     */
+    static boolean isOrdered(Dictionary<?, ?> dict) {
+        if (dict instanceof AdaptiveDictionary) {
+            return ((AdaptiveDictionary<?, ?>) dict).representation() != AdaptiveDictionary.Representation.HASH;
+        }
+        return dict instanceof SortedArrayDictionary || dict instanceof BinaryTreeDictionary
+                || dict instanceof ArrayTreeDictionary || dict instanceof RedBlackTreeDictionary
+                || dict instanceof SortedTable;
+    }
+
+    /** OutputStream über einem direkten Puffer, der erst voll in den Kanal geschrieben wird. */
+    private static final class ChannelOutputStream extends OutputStream {
+        private final WritableByteChannel ch;
+        private final ByteBuffer buf = ByteBuffer.allocateDirect(BUFFER_SIZE);
+        long written = 0;
+
+        ChannelOutputStream(WritableByteChannel ch) {
+            this.ch = ch;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            if (!buf.hasRemaining()) {
+                written += drain(buf, ch);
+            }
+            buf.put((byte) b);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (!buf.hasRemaining()) {
+                    written += drain(buf, ch);
+                }
+                int n = Math.min(len, buf.remaining());
+                buf.put(b, off, n);
+                off += n;
+                len -= n;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            written += drain(buf, ch);
+        }
+    }
+}
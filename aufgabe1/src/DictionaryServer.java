@@ -0,0 +1,293 @@
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.FileReader;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+
+/**
+ * Serves a Dictionary&lt;String, String&gt; to other processes on the same machine
+ * over loopback TCP; DictionaryClient is the matching client.
+ * <p>
+ * One thread runs a NIO selector loop and executes all requests, so the dictionary
+ * needs no synchronization. Requests of a connection are answered in order; a client
+ * may send any number of requests before reading the responses (pipelining). All
+ * complete requests in the read buffer are executed before the responses are written
+ * with as few writes as possible.
+ * <p>
+ * Frame: length (int, without the length itself), request id (int), then
+ * <ul>
+ * <li>request: op (byte) and the arguments,</li>
+ * <li>response: status (byte, OK or ERROR) and the result.</li>
+ * </ul>
+ * Strings are written as length (int, -1 = null) and UTF-8 bytes.
+ * <pre>
+ * java DictionaryServer [port] [file]
+ * </pre>
+ */
+public class DictionaryServer implements Closeable {
+
+    static final byte SEARCH = 1;        // key -> value
+    static final byte INSERT = 2;        // key, value -> old value
+    static final byte REMOVE = 3;        // key -> old value
+    static final byte SEARCH_BATCH = 4;  // n, n keys -> n values
+    static final byte SIZE = 5;          // -> size (int)
+    static final byte ENTRIES = 6;       // -> n, n keys and values
+
+    static final byte OK = 0;
+    static final byte ERROR = 1;         // Nachricht (String)
+
+    static final int MAX_FRAME = 64 << 20;
+    public static final int DEFAULT_PORT = 7411;
+
+    private final Dictionary<String, String> dict;
+    private final Selector selector;
+    private final ServerSocketChannel server;
+    private final Thread thread;
+    private volatile boolean closed = false;
+
+    /** Puffer einer Verbindung. */
+    private static final class Connection {
+        ByteBuffer in = ByteBuffer.allocate(1 << 14);
+        ByteBuffer out = ByteBuffer.allocate(1 << 14);  // im Schreibmodus
+    }
+
+    /**
+     * Starts serving dict on the loopback interface.
+     * @param dict dictionary, only accessed by the server thread from now on.
+     * @param port port, 0 = any free port.
+     * @throws IOException if the port cannot be bound.
+     */
+    public DictionaryServer(Dictionary<String, String> dict, int port) throws IOException {
+        this.dict = dict;
+        this.selector = Selector.open();
+        this.server = ServerSocketChannel.open();
+        server.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        server.configureBlocking(false);
+        server.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::loop, "dictionary-server");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /** Returns the bound port. */
+    public int port() {
+        return server.socket().getLocalPort();
+    }
+
+    private void loop() {
+        try {
+            while (!closed) {
+                selector.select();
+                Iterator<SelectionKey> it = selector.selectedKeys().iterator();
+                while (it.hasNext()) {
+                    SelectionKey k = it.next();
+                    it.remove();
+                    try {
+                        if (k.isAcceptable()) {
+                            accept();
+                        } else {
+                            if (k.isReadable()) {
+                                read(k);
+                            }
+                            if (k.isValid() && k.isWritable()) {
+                                write(k);
+                            }
+                        }
+                    } catch (IOException | RuntimeException e) {
+                        k.channel().close();  // Verbindung abbrechen, Server läuft weiter
+                    }
+                }
+            }
+        } catch (IOException e) {
+            // Selektor defekt, Server beenden
+        }
+        // Schließen nur in diesem Thread, sonst ändert close() die Schlüsselmengen während der Iteration
+        try {
+            for (SelectionKey k : selector.keys()) {
+                k.channel().close();
+            }
+            selector.close();
+        } catch (IOException e) {
+            // beim Schließen nicht mehr relevant
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel ch = server.accept();
+        if (ch != null) {
+            ch.configureBlocking(false);
+            ch.socket().setTcpNoDelay(true);
+            ch.register(selector, SelectionKey.OP_READ, new Connection());
+        }
+    }
+
+    private void read(SelectionKey k) throws IOException {
+        Connection c = (Connection) k.attachment();
+        SocketChannel ch = (SocketChannel) k.channel();
+        if (ch.read(c.in) < 0) {
+            ch.close();
+            return;
+        }
+        c.in.flip();
+        while (c.in.remaining() >= 4) {
+            int len = c.in.getInt(c.in.position());
+            if (len < 5 || len > MAX_FRAME) {
+                throw new IOException("bad frame length " + len);
+            }
+            if (c.in.remaining() < 4 + len) {
+                if (c.in.capacity() < 4 + len) {  // Rahmen passt nicht in den Puffer
+                    ByteBuffer bigger = ByteBuffer.allocate(Math.max(4 + len, 2 * c.in.capacity()));
+                    bigger.put(c.in);
+                    c.in = bigger;
+                    c.in.flip();
+                }
+                break;
+            }
+            int end = c.in.position() + 4 + len;
+            c.in.getInt();
+            int id = c.in.getInt();
+            ByteBuffer req = c.in.slice().limit(len - 4);
+            c.in.position(end);
+            execute(c, id, req);
+        }
+        c.in.compact();
+        write(k);
+    }
+
+    private void execute(Connection c, int id, ByteBuffer req) {
+        int start = c.out.position();
+        ensure(c, 9);
+        c.out.putInt(0);  // Länge wird nachgetragen
+        c.out.putInt(id);
+        c.out.put(OK);
+        try {
+            switch (req.get()) {
+                case SEARCH:
+                    putString(c, dict.search(getString(req)));
+                    break;
+                case INSERT:
+                    String key = getString(req);
+                    putString(c, dict.insert(key, getString(req)));
+                    break;
+                case REMOVE:
+                    putString(c, dict.remove(getString(req)));
+                    break;
+                case SEARCH_BATCH:
+                    int n = req.getInt();
+                    ensure(c, 4);
+                    c.out.putInt(n);
+                    for (int i = 0; i < n; i++) {
+                        putString(c, dict.search(getString(req)));
+                    }
+                    break;
+                case SIZE:
+                    ensure(c, 4);
+                    c.out.putInt(dict.size());
+                    break;
+                case ENTRIES:
+                    // Anzahl erst nach dem Schreiben eintragen, size() kann vom Iterator abweichen
+                    ensure(c, 4);
+                    int countAt = c.out.position();
+                    c.out.putInt(0);
+                    int count = 0;
+                    for (Dictionary.Entry<String, String> e : dict) {
+                        putString(c, e.getKey());
+                        putString(c, e.getValue());
+                        count++;
+                    }
+                    c.out.putInt(countAt, count);
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown op");
+            }
+        } catch (RuntimeException e) {
+            c.out.position(start + 8);
+            c.out.put(ERROR);
+            putString(c, String.valueOf(e));
+        }
+        c.out.putInt(start, c.out.position() - start - 4);
+    }
+
+    private static String getString(ByteBuffer b) {
+        int len = b.getInt();
+        if (len < 0) {
+            return null;
+        }
+        String s = new String(b.array(), b.arrayOffset() + b.position(), len, StandardCharsets.UTF_8);
+        b.position(b.position() + len);
+        return s;
+    }
+
+    private static void putString(Connection c, String s) {
+        if (s == null) {
+            ensure(c, 4);
+            c.out.putInt(-1);
+            return;
+        }
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        ensure(c, 4 + b.length);
+        c.out.putInt(b.length);
+        c.out.put(b);
+    }
+
+    private static void ensure(Connection c, int n) {
+        if (c.out.remaining() < n) {
+            ByteBuffer bigger = ByteBuffer.allocate(Math.max(c.out.capacity() * 2, c.out.position() + n));
+            c.out.flip();
+            bigger.put(c.out);
+            c.out = bigger;
+        }
+    }
+
+    private void write(SelectionKey k) throws IOException {
+        Connection c = (Connection) k.attachment();
+        if (!k.isValid()) {
+            return;
+        }
+        c.out.flip();
+        ((SocketChannel) k.channel()).write(c.out);
+        boolean pending = c.out.hasRemaining();
+        c.out.compact();
+        // bei vollem Socket auf OP_WRITE warten und solange nichts mehr lesen
+        k.interestOps(pending ? SelectionKey.OP_WRITE : SelectionKey.OP_READ);
+    }
+
+    /** Stops the server thread and closes all connections. */
+    @Override
+    public void close() throws IOException {
+        closed = true;
+        selector.wakeup();
+        try {
+            thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Dictionary<String, String> dict = new HashDictionary<>(3);
+        if (args.length > 1) {
+            try (BufferedReader rd = new BufferedReader(new FileReader(args[1]))) {
+                String line;
+                while ((line = rd.readLine()) != null) {
+                    String[] entry = line.split(" ");
+                    if (entry.length >= 2) {
+                        dict.insert(entry[0], entry[1]);
+                    }
+                }
+            }
+        }
+        DictionaryServer s = new DictionaryServer(dict, port);
+        System.out.printf("Serving %d entries on port %d%n", dict.size(), s.port());
+        s.thread.join();
+    }
+}
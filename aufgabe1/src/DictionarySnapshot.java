@@ -0,0 +1,132 @@
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Binary snapshot format shared by the Dictionary implementations.
+ * <p>
+ * Layout: magic number (int), version (byte), flags (byte), number of entries (int),
+ * then per entry the key and the value as written by their Codec.
+ * The flag SORTED states that the entries are in ascending key order, so that sorted
+ * implementations can be restored without sorting or rebalancing.
+ * The flag TREEIFY records that a HashDictionary converts long chains into trees.
+ */
+public final class DictionarySnapshot {
+
+    private static final int MAGIC = 0x414c4453;  // "ALDS"
+    private static final byte VERSION = 1;
+    static final byte SORTED = 1;
+    static final byte TREEIFY = 2;
+
+    private DictionarySnapshot() {}
+
+    /**
+     * Converts keys or values to and from their binary representation.
+     * @param <T> type of the converted objects.
+     */
+    public interface Codec<T> {
+        void write(DataOutput out, T t) throws IOException;
+        T read(DataInput in) throws IOException;
+    }
+
+    /** Strings as length (int) and UTF-8 bytes. */
+    public static final Codec<String> STRING = new Codec<>() {
+        @Override
+        public void write(DataOutput out, String s) throws IOException {
+            byte[] b = s.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(b.length);
+            out.write(b);
+        }
+
+        @Override
+        public String read(DataInput in) throws IOException {
+            byte[] b = new byte[in.readInt()];
+            in.readFully(b);
+            return new String(b, StandardCharsets.UTF_8);
+        }
+    };
+
+    /** Integers as 4 bytes. */
+    public static final Codec<Integer> INTEGER = new Codec<>() {
+        @Override
+        public void write(DataOutput out, Integer i) throws IOException {
+            out.writeInt(i);
+        }
+
+        @Override
+        public Integer read(DataInput in) throws IOException {
+            return in.readInt();
+        }
+    };
+
+    static <K, V> void write(OutputStream os, Dictionary<K, V> dict, Codec<K> kc, Codec<V> vc, int flags)
+            throws IOException {
+        write(new BufferedOutputStream(os, 1 << 16), dict, dict.size(), kc, vc, flags);
+    }
+
+    /** Schreibt size Einträge aus entries; SORTED nur angeben, wenn sie aufsteigend geliefert werden. */
+    static <K, V> void write(OutputStream os, Iterable<Dictionary.Entry<K, V>> entries, int size, Codec<K> kc,
+            Codec<V> vc, int flags) throws IOException {
+        DataOutputStream out = new DataOutputStream(os);
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        out.writeByte(flags);
+        out.writeInt(size);
+        int n = 0;
+        for (Dictionary.Entry<K, V> e : entries) {
+            kc.write(out, e.getKey());
+            vc.write(out, e.getValue());
+            n++;
+        }
+        if (n != size) {
+            throw new IllegalStateException("iterator returned " + n + " entries, size is " + size);
+        }
+        out.flush();
+    }
+
+    /** Liest die Einträge eines Snapshots nacheinander. */
+    static final class Reader<K, V> {
+        private final DataInputStream in;
+        private final Codec<K> kc;
+        private final Codec<V> vc;
+        final boolean sorted;
+        final boolean treeify;
+        final int size;
+
+        Reader(InputStream is, Codec<K> kc, Codec<V> vc) throws IOException {
+            this.in = new DataInputStream(new BufferedInputStream(is, 1 << 16));
+            this.kc = kc;
+            this.vc = vc;
+            if (in.readInt() != MAGIC || in.readByte() != VERSION) {
+                throw new IOException("not a dictionary snapshot");
+            }
+            byte flags = in.readByte();
+            sorted = (flags & SORTED) != 0;
+            treeify = (flags & TREEIFY) != 0;
+            size = in.readInt();
+            if (size < 0) {
+                throw new IOException("corrupt dictionary snapshot");
+            }
+        }
+
+        K key() throws IOException {
+            return kc.read(in);
+        }
+
+        V value() throws IOException {
+            return vc.read(in);
+        }
+
+        Dictionary.Entry<K, V> entry() throws IOException {
+            K k = key();
+            return new Dictionary.Entry<>(k, value());
+        }
+    }
+}
@@ -5,6 +5,23 @@
  * 26.09.2022
  */
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Static test methods for different Dictionary implementations.
  * @author oliverbittel
@@ -17,8 +34,28 @@ public class DictionaryTest {
 	public static void main(String[] args)  {
 
 		testSortedArrayDictionary();
+		testTieredVector();
 		testHashDictionary();
+		testTreeifiedHashDictionary();
 		testBinaryTreeDictionary();
+		testArrayTreeDictionary();
+		testRedBlackTreeDictionary();
+		testBinaryTreeSetOperations();
+		testCuckooHashDictionary();
+		testSwissHashDictionary();
+		testSortedTable();
+		testLsmDictionary();
+		testLoggedDictionary();
+		testSnapshot();
+		testSynchronizedDictionary();
+		testAdaptiveDictionary();
+		testBidirectionalDictionary();
+		testBKTree();
+		testShardedDictionary();
+		testDictionaryServer();
+		testStringPool();
+		testExpiringDictionary();
+		testDictionaryExport();
 	}
 
 	private static void testSortedArrayDictionary() {
@@ -26,11 +63,584 @@ public class DictionaryTest {
 		testDict(dict);
 	}
 
+	private static void testTieredVector() {
+		// zufällige Einfüge- und Löschpositionen, Wachsen und Schrumpfen, Vergleich mit ArrayList
+		Random rnd = new Random(7);
+		TieredVector<Integer> tv = new TieredVector<>();
+		List<Integer> ref = new ArrayList<>();
+		boolean ok = true;
+		for (int phase = 0; phase < 2; phase++) {
+			for (int i = 0; i < 40000; i++) {
+				int pos = rnd.nextInt(ref.size() + 1);
+				if (phase == 0 || rnd.nextInt(10) == 0) {
+					tv.add(pos, i);
+					ref.add(pos, i);
+				} else if (!ref.isEmpty()) {
+					pos = rnd.nextInt(ref.size());
+					ok &= tv.remove(pos).equals(ref.remove(pos));
+				}
+			}
+			ok &= tv.size() == ref.size();
+			for (int i = 0; i < ref.size(); i++)
+				ok &= tv.get(i).equals(ref.get(i));
+		}
+		System.out.println(ok);	// true
+	}
+
 	private static void testHashDictionary() {
 		Dictionary<String, String> dict = new HashDictionary<>(3);
 		testDict(dict);
 	}
 
+	private static void testCuckooHashDictionary() {
+		Dictionary<String, String> dict = new CuckooHashDictionary<>();
+		testDict(dict);
+
+		// viele Einträge erzwingen Verdrängungspfade, Stash und Vergrößerung
+		CuckooHashDictionary<Integer, Integer> cd = new CuckooHashDictionary<>();
+		for (int i = 0; i < 100000; i++)
+			cd.insert(i * 31, i);
+		boolean ok = cd.size() == 100000;
+		for (int i = 0; i < 100000; i++)
+			ok &= cd.search(i * 31) == i;
+		for (int i = 0; i < 100000; i += 2)
+			ok &= cd.remove(i * 31) == i;
+		ok &= cd.size() == 50000 && cd.search(0) == null && cd.search(31) == 1;
+		System.out.println(ok);	// true
+
+		// gleiche hashCodes landen bei jeder Tabellengröße in denselben zwei Buckets
+		String[] keys = DictionaryBenchmark.collidingKeys(8);
+		CuckooHashDictionary<String, Integer> cc = new CuckooHashDictionary<>();
+		for (int i = 0; i < keys.length; i++)
+			cc.insert(keys[i], i);
+		ok = cc.size() == keys.length;
+		for (int i = 0; i < keys.length; i++)
+			ok &= cc.search(keys[i]) == i;
+		for (int i = 0; i < keys.length; i += 2)
+			ok &= cc.remove(keys[i]) == i;
+		ok &= cc.size() == keys.length / 2 && cc.search(keys[0]) == null && cc.search(keys[1]) == 1;
+		ok &= cc.stashSize() <= 8;
+		for (int i = 0; i < keys.length; i += 2)
+			ok &= cc.insert(keys[i], -i) == null;
+		ok &= cc.size() == keys.length && cc.insert(keys[2], 2) == -2;
+		int n = 0;
+		for (Dictionary.Entry<String, Integer> e : cc)
+			n++;
+		System.out.println(ok && n == keys.length);	// true
+
+		// zufällige Schlüssel in großer Tabelle: beide Buckets unabhängig, Stash bleibt klein
+		CuckooHashDictionary<Integer, Integer> cr = new CuckooHashDictionary<>();
+		Random rnd = new Random(5);
+		for (int i = 0; i < 1000000; i++)
+			cr.insert(rnd.nextInt(), i);
+		System.out.println(cr.stashSize() <= 8 && 4L * cr.size() > cr.capacity());	// true
+	}
+
+	private static void testSwissHashDictionary() {
+		Dictionary<String, String> dict = new SwissHashDictionary<>();
+		testDict(dict);
+
+		// Grabsteine und Vergrößerung
+		SwissHashDictionary<Integer, Integer> sd = new SwissHashDictionary<>();
+		boolean ok = true;
+		for (int round = 0; round < 3; round++) {
+			for (int i = 0; i < 50000; i++)
+				sd.insert(i, i + round);
+			for (int i = 0; i < 50000; i++)
+				ok &= sd.search(i) == i + round;
+			for (int i = 0; i < 50000; i += 3)
+				ok &= sd.remove(i) == i + round;
+			ok &= sd.search(0) == null && sd.search(1) == 1 + round;
+		}
+		int n = 0;
+		for (Dictionary.Entry<Integer, Integer> e : sd)
+			n++;
+		ok &= n == sd.size() && sd.size() == 50000 - 16667;
+		System.out.println(ok);	// true
+	}
+
+	private static void testSynchronizedDictionary() {
+		Dictionary<String, String> dict = new SynchronizedDictionary<>(new HashDictionary<String, String>(3));
+		testDict(dict);
+	}
+
+	private static void testTreeifiedHashDictionary() {
+		Dictionary<String, String> dict = new HashDictionary<>(3, true);
+		testDict(dict);
+
+		// "Aa" und "BB" haben denselben hashCode, alle 2^12 Kombinationen landen im selben Bucket
+		String[] keys = DictionaryBenchmark.collidingKeys(12);
+		HashDictionary<String, Integer> hd = new HashDictionary<>(3, true);
+		for (int i = 0; i < keys.length; i++)
+			hd.insert(keys[i], i);
+		boolean ok = hd.size() == keys.length;
+		for (int i = 0; i < keys.length; i++)
+			ok &= hd.search(keys[i]) == i;
+		for (int i = 0; i < keys.length - 3; i++)
+			ok &= hd.remove(keys[i]) == i;
+		int n = 0;
+		for (Dictionary.Entry<String, Integer> e : hd)
+			n++;
+		ok &= hd.size() == 3 && n == 3 && hd.search(keys[keys.length - 1]) == keys.length - 1;
+
+		// Einfügen in Baum-Buckets muss die Tabelle ebenfalls vergrößern
+		for (int i = 0; i < keys.length; i++)
+			hd.insert(keys[i], i);
+		ok &= hd.size() == keys.length && hd.capacity() >= hd.size();
+		System.out.println(ok);	// true
+	}
+
+	private static void testDictionaryExport() {
+		try {
+			Path dir = Files.createTempDirectory("export");
+			Dictionary<String, String> hash = new SwissHashDictionary<>();
+			for (int i = 0; i < 50000; i++)
+				hash.insert("w" + i, "ü" + i);
+			Path text = dir.resolve("dict.txt");
+			long bytes = DictionaryExport.writeText(hash, text, true);
+			List<String> lines = Files.readAllLines(text);
+			boolean ok = bytes == Files.size(text) && lines.size() == 50000 && lines.get(0).equals("w0 ü0");
+			for (int i = 1; i < lines.size(); i++)
+				ok &= lines.get(i - 1).compareTo(lines.get(i)) < 0;
+			System.out.println(ok);	// true
+
+			Path bin = dir.resolve("dict.bin");
+			DictionaryExport.writeBinary(hash, bin, DictionarySnapshot.STRING, DictionarySnapshot.STRING, true);
+			Dictionary<String, String> restored = BinaryTreeDictionary.restore(bin, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+			ok = restored.size() == 50000 && restored.search("w49999").equals("ü49999");
+			DictionaryExport.writeBinary(new SortedArrayDictionary<String, String>(), bin, DictionarySnapshot.STRING, DictionarySnapshot.STRING, false);
+			ok &= SortedArrayDictionary.restore(bin, DictionarySnapshot.STRING, DictionarySnapshot.STRING).size() == 0;
+			System.out.println(ok);	// true
+
+			// SortedTable mit Tombstone: nur die lebenden Einträge werden exportiert
+			SortedArrayDictionary<String, String> dead = new SortedArrayDictionary<>();
+			dead.insert("a", "1");
+			dead.insert("b", null);
+			dead.insert("c", "3");
+			Path sst = dir.resolve("dict.sst");
+			SortedTable.write(sst, dead, false);
+			try (SortedTable table = new SortedTable(sst)) {
+				DictionaryExport.writeBinary(table, bin, DictionarySnapshot.STRING, DictionarySnapshot.STRING, true);
+			}
+			SortedArrayDictionary<String, String> live = SortedArrayDictionary.restore(bin, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+			System.out.println(live.size() == 2 && live.search("b") == null && live.search("c").equals("3"));	// true
+			for (Path p : new Path[] {text, bin, sst, dir})
+				Files.delete(p);
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+	}
+
+	private static void testExpiringDictionary() {
+		long[] now = {1000};
+		ExpiringDictionary<Integer, Integer> ed = new ExpiringDictionary<>(100, 10, () -> now[0], 0);
+		testDict(new ExpiringDictionary<>(60000, 10, () -> now[0], 0));
+
+		ed.insert(1, 1);
+		ed.insert(2, 2, 1, TimeUnit.SECONDS);
+		ed.insert(3, 3, 2, TimeUnit.HOURS);  // höhere Ebenen des Rads
+		now[0] += 99;
+		boolean ok = ed.search(1) == 1 && ed.size() == 3;
+		now[0] += 1;
+		ok &= ed.search(1) == null && ed.size() == 2;
+		ok &= ed.insert(2, 20) == 2;  // neuer Wert und neue TTL
+		now[0] += 150;
+		ok &= ed.search(2) == null && ed.size() == 1;
+		now[0] += 2 * 3600 * 1000 - 251;
+		ok &= ed.size() == 1 && ed.search(3) == 3;
+		now[0] += 1;
+		ok &= ed.size() == 0 && !ed.iterator().hasNext();
+		System.out.println(ok);	// true
+
+		// zufällige TTLs, size muss nach jedem Schritt der Zahl der nicht abgelaufenen Einträge entsprechen
+		Random rnd = new Random(3);
+		long[] deadline = new long[2000];
+		ok = true;
+		for (int step = 0; step < 3000; step++) {
+			int k = rnd.nextInt(deadline.length);
+			long ttl = rnd.nextInt(4) == 0 ? rnd.nextInt(500000) : rnd.nextInt(300);
+			ed.insert(k, step, ttl, TimeUnit.MILLISECONDS);
+			deadline[k] = now[0] + ttl;
+			now[0] += rnd.nextInt(5);
+			if (step % 100 == 0)
+				now[0] += rnd.nextInt(20000);
+			int alive = 0;
+			for (long d : deadline)
+				if (d > now[0])
+					alive++;
+			ok &= ed.size() == alive;
+		}
+		int n = 0;
+		for (Dictionary.Entry<Integer, Integer> e : ed) {
+			ok &= deadline[e.getKey()] > now[0];
+			n++;
+		}
+		System.out.println(ok && n == ed.size());	// true
+		ed.close();
+
+		// Ablauf genau auf einer Grenze von 64 Ticks: der Eintrag steht noch auf Ebene 1
+		now[0] = 0;
+		ExpiringDictionary<Integer, Integer> eb = new ExpiringDictionary<>(640, 10, () -> now[0], 0);
+		eb.insert(1, 1);
+		now[0] = 645;
+		System.out.println(eb.size() == 0 && eb.search(1) == null && !eb.iterator().hasNext());	// true
+
+		// lange Pause mit lebenden Einträgen: leere Ticks werden übersprungen, nicht einzeln abgearbeitet
+		eb.insert(2, 2, 40, TimeUnit.DAYS);
+		eb.insert(3, 3, 30, TimeUnit.DAYS);
+		long start = System.nanoTime();
+		now[0] += TimeUnit.DAYS.toMillis(30) - 1;
+		ok = eb.size() == 2;
+		now[0] += 1;
+		ok &= eb.size() == 1 && eb.search(2) == 2;
+		now[0] += TimeUnit.DAYS.toMillis(10);
+		ok &= eb.size() == 0;
+		System.out.println(ok && System.nanoTime() - start < 1000000000L);	// true
+
+		// der Hintergrund-Thread darf Einträge entfernen, während ein Iterator läuft
+		now[0] = 0;
+		ExpiringDictionary<Integer, Integer> es = new ExpiringDictionary<>(100, 10, () -> now[0], 1);
+		for (int i = 0; i < 1000; i++)
+			es.insert(i, i);
+		Iterator<Dictionary.Entry<Integer, Integer>> it = es.iterator();
+		now[0] = 200;
+		try {
+			Thread.sleep(100);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		int live = 0;
+		while (it.hasNext())
+			live += it.next().getValue() != null ? 1 : 0;
+		System.out.println(live == 1000 && es.size() == 0);	// true
+		es.close();
+
+		// Hintergrund-Thread entfernt abgelaufene Einträge
+		ExpiringDictionary<String, String> cache = new ExpiringDictionary<>(20, TimeUnit.MILLISECONDS);
+		cache.insert("a", "b");
+		try {
+			Thread.sleep(300);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		System.out.println(cache.search("a") == null && cache.size() == 0);	// true
+		cache.close();
+	}
+
+	private static void testStringPool() {
+		StringPool pool = new StringPool();
+		String a = pool.intern(new String("improved"));
+		String b = pool.intern(new String("improved"));
+		String c = pool.intern(new String("going"));
+		System.out.println(a == b && a != c && pool.duplicates() == 1
+				&& pool.bytesSaved() == StringPool.sizeOf("improved") && pool.intern(a) == a);	// true
+
+		// gleiche Werte in zwei Dictionaries teilen sich eine Instanz
+		Dictionary<String, String> d1 = new HashDictionary<>(3);
+		Dictionary<String, String> d2 = new BinaryTreeDictionary<>();
+		d1.insert("verbessert", pool.intern(new String("improved")));
+		d2.insert("better", pool.intern(new String("improved")));
+		System.out.println(d1.search("verbessert") == d2.search("better") && pool.duplicates() == 3);	// true
+	}
+
+	private static void testDictionaryServer() {
+		try (DictionaryServer server = new DictionaryServer(new HashDictionary<>(3), 0);
+				DictionaryClient client = new DictionaryClient(server.port())) {
+			testDict(client);
+
+			// viele Anfragen ohne auf die Antworten zu warten
+			List<CompletableFuture<String>> results = new ArrayList<>();
+			for (int i = 0; i < 20000; i++)
+				client.insertAsync("k" + i, "v" + i);
+			for (int i = 0; i < 20000; i++)
+				results.add(client.searchAsync("k" + i));
+			boolean ok = true;
+			for (int i = 0; i < 20000; i++)
+				ok &= results.get(i).join().equals("v" + i);
+			ok &= client.searchAllAsync(List.of("k1", "x", "k19999")).join().equals(Arrays.asList("v1", null, "v19999"));
+			try (DictionaryClient other = new DictionaryClient(server.port())) {
+				ok &= other.remove("k1").equals("v1") && other.size() == client.size();
+			}
+			ok &= client.search("k1") == null;
+			System.out.println(ok);	// true
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+
+		// size() zählt mehr, als der Iterator liefert (z. B. abgelaufene Einträge)
+		HashDictionary<String, String> inexact = new HashDictionary<>(3) {
+			@Override
+			public int size() {
+				return super.size() + 1;
+			}
+		};
+		inexact.insert("a", "b");
+		inexact.insert("c", "d");
+		try (DictionaryServer server = new DictionaryServer(inexact, 0);
+				DictionaryClient client = new DictionaryClient(server.port())) {
+			int n = 0;
+			for (Dictionary.Entry<String, String> e : client)
+				n++;
+			System.out.println(n == 2 && client.search("c").equals("d"));	// true
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+	}
+
+	private static void testShardedDictionary() {
+		ShardedDictionary<String, String> dict = new ShardedDictionary<>(3, SortedArrayDictionary::new);
+		testDict(dict);
+		try {
+			dict.close();
+			dict.search("a");
+			System.out.println(false);
+		} catch (IllegalStateException e) {
+			System.out.println(true);	// true (nach close)
+		} catch (IOException e) {
+			System.out.println(e);
+		}
+
+		// mehrere Threads, asynchron und gebündelt
+		try (ShardedDictionary<Integer, Integer> sd = new ShardedDictionary<>(4, () -> new HashDictionary<Integer, Integer>(3))) {
+			Thread[] writers = new Thread[4];
+			for (int t = 0; t < writers.length; t++) {
+				int offset = t;
+				writers[t] = new Thread(() -> {
+					for (int i = offset; i < 40000; i += 4)
+						sd.insertAsync(i, i);
+				});
+				writers[t].start();
+			}
+			for (Thread w : writers)
+				w.join();
+			List<Integer> keys = new ArrayList<>();
+			for (int i = 0; i < 40000; i += 7)
+				keys.add(i);
+			boolean ok = sd.searchAllAsync(keys).join().equals(keys);
+			ok &= sd.removeAsync(7).join() == 7 && sd.searchAsync(7).join() == null;
+			ok &= sd.insertAllAsync(List.of(7, 8), List.of(70, 80)).join().equals(Arrays.asList(null, 8));
+			ok &= sd.size() == 40000 && sd.search(8) == 80;
+			long n = 0;
+			for (int s = 0; s < sd.shards(); s++)
+				n += sd.latency(s).count();
+			ok &= n > 40000;
+			System.out.println(ok);	// true
+		} catch (IOException | InterruptedException e) {
+			System.out.println(e);
+		}
+	}
+
+	private static void testBKTree() {
+		Dictionary<String, String> dict = new HashDictionary<>(3);
+		for (String w : new String[] {"verbessert", "verbessern", "erfreulich", "lehrerin", "lehrer", "kapelle"})
+			dict.insert(w, w);
+		BKTree tree = new BKTree(dict);
+		System.out.println(tree.search("verbesert", 1).equals(List.of("verbessert")));	// true
+		System.out.println(tree.search("lehrern", 2).equals(List.of("lehrer", "lehrerin")));	// true
+
+		// Vergleich mit linearer Suche
+		Random rnd = new Random(1);
+		List<String> words = new ArrayList<>();
+		for (int i = 0; i < 3000; i++) {
+			StringBuilder sb = new StringBuilder();
+			for (int j = 1 + rnd.nextInt(8); j > 0; j--)
+				sb.append((char) ('a' + rnd.nextInt(4)));
+			words.add(sb.toString());
+			tree.add(sb.toString());
+		}
+		boolean ok = true;
+		for (int q = 0; q < 200; q++) {
+			String query = words.get(rnd.nextInt(words.size())) + (char) ('a' + rnd.nextInt(5));
+			Set<String> expected = new HashSet<>();
+			for (Dictionary.Entry<String, String> e : dict)
+				if (tree.distance(query, e.getKey(), Integer.MAX_VALUE) <= 2)
+					expected.add(e.getKey());
+			for (String w : words)
+				if (tree.distance(query, w, Integer.MAX_VALUE) <= 2)
+					expected.add(w);
+			List<String> found = tree.search(query, 2);
+			ok &= found.size() == expected.size() && expected.containsAll(found);
+		}
+		System.out.println(ok);	// true
+	}
+
+	private static void testBidirectionalDictionary() {
+		testDict(new BidirectionalDictionary<>());
+
+		BidirectionalDictionary<String, String> dict = new BidirectionalDictionary<>();
+		dict.insert("verbessert", "improved");
+		dict.insert("gehend", "going");
+		dict.insert("laufend", "going");
+		System.out.println(dict.searchInverse("improved").contains("verbessert"));	// true
+		System.out.println(dict.searchInverse("going").size() == 2);	// true
+		dict.insert("gehend", "walking");
+		dict.remove("verbessert");
+		System.out.println(dict.searchInverse("going").equals(List.of("laufend"))
+				&& dict.searchInverse("walking").equals(List.of("gehend"))
+				&& dict.searchInverse("improved").isEmpty());	// true
+
+		// viele Einträge mit je 100 Schlüsseln pro Wert, Überschreiben und Löschen
+		BidirectionalDictionary<Integer, Integer> bd = new BidirectionalDictionary<>();
+		boolean ok = true;
+		for (int i = 0; i < 50000; i++)
+			bd.insert(i, i % 500);
+		for (int i = 0; i < 50000; i += 2)
+			bd.insert(i, -1);
+		for (int i = 0; i < 50000; i += 3)
+			bd.remove(i);
+		for (int i = 0; i < 20000; i += 3)
+			bd.insert(i, i % 500);
+		int n = 0;
+		for (int i = 0; i < 50000; i++) {
+			Integer expected = i % 3 == 0 ? (i < 20000 ? Integer.valueOf(i % 500) : null) : i % 2 == 0 ? Integer.valueOf(-1) : Integer.valueOf(i % 500);
+			ok &= Objects.equals(bd.search(i), expected);
+			if (expected != null)
+				n++;
+		}
+		ok &= bd.size() == n;
+		int m = bd.searchInverse(-1).size();
+		for (int v = 0; v < 500; v++) {
+			for (int k : bd.searchInverse(v))
+				ok &= bd.search(k) == v;
+			m += bd.searchInverse(v).size();
+		}
+		ok &= m == n;
+		System.out.println(ok);	// true
+	}
+
+	private static void testAdaptiveDictionary() {
+		AdaptiveDictionary<Integer, Integer> dict = new AdaptiveDictionary<>();
+		testDict(new AdaptiveDictionary<>());
+
+		for (int i = 0; i < 100; i++)
+			dict.insert(i, i);
+		boolean ok = dict.representation() == AdaptiveDictionary.Representation.SORTED_ARRAY;
+		for (int i = 100; i < 20000; i++)
+			dict.insert(i, i);
+		for (int i = 0; i < 5000; i++)
+			dict.search(i);
+		ok &= dict.representation() == AdaptiveDictionary.Representation.HASH;
+		for (int i = 0; i < 3000; i++) {
+			dict.search(i);
+			if (i % 10 == 0)
+				ok &= dict.range(i, i + 5).size() == 5;
+		}
+		ok &= dict.representation() == AdaptiveDictionary.Representation.TREE;
+		for (int i = 50; i < 20000; i++)
+			dict.remove(i);
+		for (int i = 0; i < 2000; i++)
+			dict.search(i);
+		ok &= dict.representation() == AdaptiveDictionary.Representation.SORTED_ARRAY;
+		ok &= dict.size() == 50 && dict.search(49) == 49 && isSorted(dict);
+		System.out.println(ok);	// true
+
+		// Anteil geordneter Operationen schwankt um 5 %: kein Wechsel in jedem Fenster
+		AdaptiveDictionary<Integer, Integer> ad = new AdaptiveDictionary<>();
+		for (int i = 0; i < 20000; i++)
+			ad.insert(i, i);
+		int before = ad.migrations();
+		for (int w = 0; w < 100; w++) {
+			int ranges = w % 2 == 0 ? 40 : 60;
+			for (int i = 0; i < AdaptiveDictionary.WINDOW; i++) {
+				if (i < ranges)
+					ad.range(i, i + 3);
+				else
+					ad.search(i);
+			}
+		}
+		System.out.println(ad.migrations() - before <= 2 && ad.size() == 20000 && ad.search(19999) == 19999);	// true
+
+		// Bereichsanfragen von sortiertem Feld und Baum im Vergleich mit TreeMap.subMap
+		Random rnd = new Random(13);
+		SortedArrayDictionary<Integer, Integer> sad = new SortedArrayDictionary<>();
+		BinaryTreeDictionary<Integer, Integer> btd = new BinaryTreeDictionary<>();
+		TreeMap<Integer, Integer> ref = new TreeMap<>();
+		for (int i = 0; i < 1000; i++) {
+			int k = 2 * rnd.nextInt(1000);
+			sad.insert(k, i);
+			btd.insert(k, i);
+			ref.put(k, i);
+		}
+		ok = true;
+		for (int q = 0; q < 500; q++) {
+			Integer from = q % 10 == 0 ? null : rnd.nextInt(2100) - 50;
+			Integer to = q % 7 == 0 ? null : rnd.nextInt(2100) - 50;
+			Map<Integer, Integer> sub = ref;
+			if (from != null && to != null)
+				sub = from <= to ? ref.subMap(from, to) : Map.of();
+			else if (from != null)
+				sub = ref.tailMap(from);
+			else if (to != null)
+				sub = ref.headMap(to);
+			List<Integer> expected = new ArrayList<>(sub.keySet());
+			for (List<Dictionary.Entry<Integer, Integer>> res : List.of(sad.range(from, to), btd.range(from, to))) {
+				List<Integer> keys = new ArrayList<>();
+				for (Dictionary.Entry<Integer, Integer> e : res) {
+					keys.add(e.getKey());
+					ok &= e.getValue().equals(ref.get(e.getKey()));
+				}
+				ok &= keys.equals(expected);
+			}
+		}
+		System.out.println(ok);	// true
+	}
+
+	private static void testArrayTreeDictionary() {
+		testDict(new ArrayTreeDictionary<>());
+
+		// zufällige Operationen im Vergleich mit TreeMap, Knoten werden über die Freiliste wiederverwendet
+		Random rnd = new Random(11);
+		ArrayTreeDictionary<Integer, Integer> atd = new ArrayTreeDictionary<>();
+		TreeMap<Integer, Integer> ref = new TreeMap<>();
+		boolean ok = true;
+		for (int i = 0; i < 200000; i++) {
+			int k = rnd.nextInt(20000);
+			if (rnd.nextInt(3) == 0)
+				ok &= Objects.equals(atd.remove(k), ref.remove(k));
+			else
+				ok &= Objects.equals(atd.insert(k, i), ref.put(k, i));
+		}
+		ok &= atd.size() == ref.size() && isSorted(atd);
+		ok &= atd.getHeight() <= 1.45 * Math.log(atd.size() + 2) / Math.log(2);
+		Iterator<Dictionary.Entry<Integer, Integer>> it = atd.iterator();
+		for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+			Dictionary.Entry<Integer, Integer> a = it.next();
+			ok &= a.getKey().equals(e.getKey()) && a.getValue().equals(e.getValue());
+		}
+		System.out.println(ok && !it.hasNext());	// true
+	}
+
+	private static void testRedBlackTreeDictionary() {
+		testDict(new RedBlackTreeDictionary<>());
+
+		// zufällige Operationen im Vergleich mit TreeMap
+		Random rnd = new Random(13);
+		RedBlackTreeDictionary<Integer, Integer> rb = new RedBlackTreeDictionary<>();
+		TreeMap<Integer, Integer> ref = new TreeMap<>();
+		boolean ok = true;
+		int updates = 0;
+		for (int i = 0; i < 200000; i++) {
+			int k = rnd.nextInt(20000);
+			if (rnd.nextInt(3) == 0) {
+				ok &= Objects.equals(rb.remove(k), ref.remove(k));
+			} else {
+				ok &= Objects.equals(rb.insert(k, i), ref.put(k, i));
+			}
+			updates++;
+		}
+		ok &= rb.size() == ref.size() && isSorted(rb);
+		ok &= rb.getHeight() <= 2 * Math.log(rb.size() + 1) / Math.log(2);
+		ok &= rb.rotations() <= 3L * updates;
+		Iterator<Dictionary.Entry<Integer, Integer>> it = rb.iterator();
+		for (Map.Entry<Integer, Integer> e : ref.entrySet()) {
+			Dictionary.Entry<Integer, Integer> a = it.next();
+			ok &= a.getKey().equals(e.getKey()) && a.getValue().equals(e.getValue());
+		}
+		for (int k = 0; k < 20000; k++)
+			rb.remove(k);
+		System.out.println(ok && !it.hasNext() && rb.size() == 0 && !rb.iterator().hasNext());	// true
+	}
+
 	private static void testBinaryTreeDictionary() {
 		Dictionary<String, String> dict = new BinaryTreeDictionary<>();
 		testDict(dict);
@@ -79,6 +689,207 @@ public class DictionaryTest {
         btd.prettyPrint();
     }
 
+	private static void testBinaryTreeSetOperations() {
+		System.out.println("===== Set Operations BinaryTreeDictionary =====");
+		BinaryTreeDictionary<Integer, Integer> a = new BinaryTreeDictionary<>();
+		BinaryTreeDictionary<Integer, Integer> b = new BinaryTreeDictionary<>();
+		for (int i = 0; i < 300000; i += 2)
+			a.insert(i, 0);
+		for (int i = 0; i < 300000; i += 3)
+			b.insert(i, 1);
+
+		a.union(b);
+		System.out.println(a.size() == 200000 && isSorted(a));		// true
+		System.out.println(a.search(6) == 1 && a.search(4) == 0);	// true
+		System.out.println(b.size() == 100000 && isSorted(b));		// true
+
+		a.difference(b);
+		System.out.println(a.size() == 100000 && a.search(6) == null && a.search(4) == 0);	// true
+
+		a.union(b);
+		a.intersection(b);
+		System.out.println(a.size() == 100000 && isSorted(a));	// true
+
+		BinaryTreeDictionary<Integer, Integer> right = a.split(150000);
+		System.out.println(a.size() == 50000 && right.size() == 50000 && right.search(150000) == 1);	// true
+		right.remove(150000);
+		BinaryTreeDictionary<Integer, Integer> joined = BinaryTreeDictionary.join(a, 150000, 2, right);
+		System.out.println(joined.size() == 100000 && joined.search(150000) == 2 && isSorted(joined));	// true
+	}
+
+	private static void testSortedTable() {
+		System.out.println("===== SortedTable ========================");
+		SortedArrayDictionary<String, String> dict = new SortedArrayDictionary<>();
+		for (int i = 0; i < 20000; i++)
+			dict.insert(String.format("key%06d", i), "value" + i);
+		try {
+			Path file = Files.createTempFile("dict", ".sst");
+			SortedArrayDictionary.exportSortedTable(dict, file, true);
+			try (SortedTable table = new SortedTable(file)) {
+				System.out.println(table.size() == 20000);							// true
+				System.out.println(table.search("key012345").equals("value12345"));	// true
+				System.out.println(table.search("key0123450") == null);				// true
+				int n = 0;
+				Iterator<Dictionary.Entry<String, String>> it = table.range("key000100", "key000200");
+				while (it.hasNext() && it.next().getKey().startsWith("key0001"))
+					n++;
+				System.out.println(n == 100);	// true
+			}
+
+			// Tombstones zählen nicht zu size()
+			SortedArrayDictionary<String, String> dead = new SortedArrayDictionary<>();
+			dead.insert("a", "1");
+			dead.insert("b", null);
+			dead.insert("c", "3");
+			SortedTable.write(file, dead, false);
+			try (SortedTable table = new SortedTable(file)) {
+				int live = 0;
+				for (Dictionary.Entry<String, String> e : table)
+					live++;
+				System.out.println(table.size() == 2 && live == 2 && table.entryCount() == 3);	// true
+			}
+			Files.delete(file);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static void testLsmDictionary() {
+		try {
+			Path dir = Files.createTempDirectory("lsm");
+			try (LsmDictionary dict = new LsmDictionary(dir, 1000)) {
+				testDict(dict);
+				for (int i = 0; i < 20000; i++)
+					dict.insert(String.format("key%06d", i), "value" + i);
+				for (int i = 0; i < 20000; i += 2)
+					dict.remove(String.format("key%06d", i));
+			}
+			try (LsmDictionary dict = new LsmDictionary(dir, 1000)) {
+				System.out.println(dict.size() == 10017);							// true
+				System.out.println(dict.search("key000002") == null);				// true
+				System.out.println(dict.search("key012345").equals("value12345"));	// true
+				System.out.println(dict.search("gehen").equals("go"));				// true
+			}
+			try (var files = Files.list(dir)) {
+				files.forEach(f -> f.toFile().delete());
+			}
+			Files.delete(dir);
+
+			// flush beim Schließen scheitert (Verzeichnis fehlt): der Hintergrund-Thread endet trotzdem
+			Path gone = Files.createTempDirectory("lsm");
+			LsmDictionary dict = new LsmDictionary(gone, 1000);
+			dict.insert("a", "b");
+			try (var files = Files.list(gone)) {
+				files.forEach(f -> f.toFile().delete());
+			}
+			Files.delete(gone);
+			try {
+				dict.close();
+				System.out.println(false);
+			} catch (IOException e) {
+				boolean stopped = true;
+				for (Thread t : Thread.getAllStackTraces().keySet()) {
+					if (t.getName().equals("lsm-compaction")) {
+						t.join(1000);
+						stopped &= !t.isAlive();
+					}
+				}
+				System.out.println(stopped);	// true
+			}
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static void testLoggedDictionary() {
+		System.out.println("===== LoggedDictionary ========================");
+		try {
+			Path log = Files.createTempFile("dict", ".wal");
+			try (LoggedDictionary dict = new LoggedDictionary(new HashDictionary<>(3), log)) {
+				Thread[] writers = new Thread[8];
+				for (int t = 0; t < writers.length; t++) {
+					int id = t;
+					writers[t] = new Thread(() -> {
+						for (int i = 0; i < 500; i++)
+							dict.insert("key" + id + "_" + i, "value" + i);
+					});
+					writers[t].start();
+				}
+				for (Thread w : writers)
+					w.join();
+				dict.remove("key0_0");
+				System.out.println(dict.log().syncCount() < 4001);	// true (group commit)
+			}
+			try (LoggedDictionary dict = new LoggedDictionary(new SortedArrayDictionary<>(), log)) {
+				dict.insert("nullwert", null);
+				System.out.println(false);
+			} catch (IllegalArgumentException e) {
+				System.out.println(true);	// true (null wird nicht geloggt)
+			}
+			Files.write(log, new byte[] {0, 0, 0, 42, 1, 2}, StandardOpenOption.APPEND);	// abgeschnittener Eintrag
+			try (LoggedDictionary dict = new LoggedDictionary(new SortedArrayDictionary<>(), log)) {
+				System.out.println(dict.size() == 3999);						// true
+				System.out.println(dict.search("key7_499").equals("value499"));	// true
+				System.out.println(dict.search("key0_0") == null);				// true
+			}
+			Files.delete(log);
+		} catch (IOException | InterruptedException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static void testSnapshot() {
+		System.out.println("===== Snapshot ========================");
+		try {
+			Path file = Files.createTempFile("dict", ".snap");
+			HashDictionary<Integer, String> hd = new HashDictionary<>(3);
+			for (int i = 0; i < 10000; i++)
+				hd.insert(i * 7 % 10007, "v" + i);
+			hd.snapshot(file, DictionarySnapshot.INTEGER, DictionarySnapshot.STRING);
+
+			HashDictionary<Integer, String> hd2 = HashDictionary.restore(file, DictionarySnapshot.INTEGER, DictionarySnapshot.STRING);
+			System.out.println(hd2.size() == 10000 && hd2.search(7).equals("v1"));	// true
+
+			// unsortierter Snapshot wird beim Wiederherstellen einmal sortiert
+			BinaryTreeDictionary<Integer, String> bd = BinaryTreeDictionary.restore(file, DictionarySnapshot.INTEGER, DictionarySnapshot.STRING);
+			System.out.println(bd.size() == 10000 && bd.search(7).equals("v1") && isSorted(bd));	// true
+			bd.snapshot(file, DictionarySnapshot.INTEGER, DictionarySnapshot.STRING);
+
+			SortedArrayDictionary<Integer, String> sd = SortedArrayDictionary.restore(file, DictionarySnapshot.INTEGER, DictionarySnapshot.STRING);
+			System.out.println(sd.size() == 10000 && sd.search(7).equals("v1") && isSorted(sd));	// true
+			sd.insert(-1, "x");
+			System.out.println(sd.size() == 10001 && sd.search(-1).equals("x"));	// true
+
+			// treeify bleibt erhalten, lange Ketten werden wieder zu Bäumen
+			String[] keys = DictionaryBenchmark.collidingKeys(8);
+			HashDictionary<String, String> th = new HashDictionary<>(3, true);
+			for (String k : keys)
+				th.insert(k, k);
+			th.snapshot(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+			HashDictionary<String, String> th2 = HashDictionary.restore(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+			boolean ok = th2.size() == keys.length && th2.treeBins() == 1;
+			for (String k : keys)
+				ok &= th2.search(k).equals(k);
+			ok &= th2.remove(keys[0]).equals(keys[0]) && th2.size() == keys.length - 1;
+			System.out.println(ok);	// true
+			Files.delete(file);
+		} catch (IOException e) {
+			e.printStackTrace();
+		}
+	}
+
+	private static <V> boolean isSorted(Dictionary<Integer, V> dict) {
+		int n = 0;
+		Integer last = null;
+		for (Dictionary.Entry<Integer, V> e : dict) {
+			if (last != null && last >= e.getKey())
+				return false;
+			last = e.getKey();
+			n++;
+		}
+		return n == dict.size();
+	}
+
 	private static void testDict(Dictionary<String, String> dict) {
 		System.out.println("===== New Test Case ========================");
 		System.out.println("test " + dict.getClass());
@@ -0,0 +1,312 @@
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Dictionary whose entries expire after a time to live (TTL), e.g. for lookup caches.
+ * <p>
+ * Every entry has a deadline and is kept in a hierarchical timing wheel: LEVELS
+ * levels of SLOTS slots, where a slot of level l covers SLOTS^l ticks. Scheduling and
+ * cancelling an entry is O(1) (doubly linked slot lists); when the wheel has advanced
+ * over a slot of level 0 all entries in it are removed, and entries of a higher level
+ * are redistributed to the lower levels when their slot comes up (cascading).
+ * <p>
+ * Expired entries are removed in three ways: search and remove check the deadline of
+ * the entry they find (lazy expiry), a background sweeper advances the wheel
+ * periodically, and size and iterator advance the wheel first, so the size is exact
+ * and iteration only has to skip entries that expired within the current tick.
+ * <p>
+ * All operations are synchronized, because the sweeper runs in its own thread.
+ * The iterator works on a copy of the live entries.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class ExpiringDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V>, Closeable {
+
+    private static final int SLOT_BITS = 6;
+    private static final int SLOTS = 1 << SLOT_BITS;
+    private static final int LEVELS = 4;  // 64^4 Ticks, bei 10 ms über 46 Stunden
+    private static final long MAX_DELTA = 1L << (SLOT_BITS * LEVELS);
+
+    /** Eintrag und zugleich Knoten einer Slot-Liste. */
+    private static final class Timer<K, V> {
+        final K key;
+        V value;
+        long deadline;  // ms
+        Timer<K, V> prev = this;
+        Timer<K, V> next = this;
+
+        Timer(K key, V value, long deadline) {
+            this.key = key;
+            this.value = value;
+            this.deadline = deadline;
+        }
+
+        void unlink() {
+            prev.next = next;
+            next.prev = prev;
+            prev = this;
+            next = this;
+        }
+    }
+
+    private final Dictionary<K, Timer<K, V>> dict = new SwissHashDictionary<>();
+    private final Timer<K, V>[][] wheel;  // Wächter der Slot-Listen
+    private final long tickMillis;
+    private final long defaultTtl;
+    private final LongSupplier clock;
+    private final ScheduledExecutorService sweeper;
+    private long currentTick;  // nächster noch nicht abgelaufener Tick
+
+    /**
+     * Creates an empty dictionary with a background sweeper.
+     * @param defaultTtl time to live of entries inserted with insert(key, value).
+     * @param unit unit of defaultTtl.
+     */
+    public ExpiringDictionary(long defaultTtl, TimeUnit unit) {
+        this(unit.toMillis(defaultTtl), 10, () -> System.nanoTime() / 1_000_000, 100);
+    }
+
+    /**
+     * Creates an empty dictionary.
+     * @param defaultTtl default time to live in ms.
+     * @param tickMillis resolution of the timing wheel in ms.
+     * @param clock current time in ms.
+     * @param sweepMillis interval of the background sweeper in ms, 0 = no sweeper.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    ExpiringDictionary(long defaultTtl, long tickMillis, LongSupplier clock, long sweepMillis) {
+        if (defaultTtl < 0 || tickMillis <= 0) {
+            throw new IllegalArgumentException("invalid ttl or tick");
+        }
+        this.defaultTtl = defaultTtl;
+        this.tickMillis = tickMillis;
+        this.clock = clock;
+        this.currentTick = clock.getAsLong() / tickMillis;
+        wheel = new Timer[LEVELS][SLOTS];
+        for (int l = 0; l < LEVELS; l++) {
+            for (int s = 0; s < SLOTS; s++) {
+                wheel[l][s] = new Timer<>(null, null, 0);
+            }
+        }
+        if (sweepMillis > 0) {
+            sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "ttl-sweeper");
+                t.setDaemon(true);
+                return t;
+            });
+            sweeper.scheduleWithFixedDelay(this::sweep, sweepMillis, sweepMillis, TimeUnit.MILLISECONDS);
+        } else {
+            sweeper = null;
+        }
+    }
+
+    /** Hängt t in den passenden Slot ein, abhängig vom Abstand seines Ticks zum aktuellen. */
+    private void schedule(Timer<K, V> t) {
+        long tick = t.deadline / tickMillis;
+        long delta = tick - currentTick;
+        if (delta < 0) {
+            tick = currentTick;  // schon abgelaufen, beim nächsten Tick entfernen
+            delta = 0;
+        } else if (delta >= MAX_DELTA) {
+            tick = currentTick + MAX_DELTA - 1;  // wird beim Kaskadieren neu eingeordnet
+            delta = MAX_DELTA - 1;
+        }
+        int level = 0;
+        while (delta >= 1L << (SLOT_BITS * (level + 1))) {
+            level++;
+        }
+        Timer<K, V> head = wheel[level][(int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1)];
+        t.prev = head.prev;
+        t.next = head;
+        head.prev.next = t;
+        head.prev = t;
+    }
+
+    /** Lässt alle Ticks ablaufen, die vor now vollständig vergangen sind. */
+    private void advance(long now) {
+        long nowTick = now / tickMillis;
+        while (currentTick < nowTick) {
+            // nach einer langen Pause nicht Tick für Tick laufen, sondern leere Ticks überspringen
+            currentTick = nextEvent(currentTick, nowTick);
+            if (currentTick >= nowTick) {
+                return;
+            }
+            long t = currentTick;
+            cascadeAll(t);
+            Timer<K, V> head = wheel[0][(int) t & (SLOTS - 1)];
+            while (head.next != head) {
+                Timer<K, V> e = head.next;
+                e.unlink();
+                dict.remove(e.key);
+            }
+            currentTick++;
+        }
+    }
+
+    /**
+     * Liefert den ersten Tick ab t (höchstens limit), an dem advance etwas zu tun hat:
+     * ein nicht leerer Slot von Ebene 0 oder eine Slot-Grenze mit nicht leerem Slot.
+     * Sind die 64 Slots einer Ebene ab t leer, ist die ganze Ebene leer, und es genügt,
+     * die nächsthöhere Ebene an ihren Grenzen zu prüfen; daher höchstens LEVELS * SLOTS Schritte.
+     */
+    private long nextEvent(long t, long limit) {
+        if (dict.size() == 0) {
+            return limit;
+        }
+        long u = t;
+        for (int l = 0; l < LEVELS; l++) {
+            long step = 1L << (SLOT_BITS * l);
+            u = (u + step - 1) & -step;  // nächste Grenze von Ebene l
+            for (int i = 0; i < SLOTS; i++, u += step) {
+                if (u >= limit) {
+                    return limit;
+                }
+                if (l == 0 && !isEmpty(0, u)) {
+                    return u;
+                }
+                for (int j = Math.max(1, l); j < LEVELS && (u & ((1L << (SLOT_BITS * j)) - 1)) == 0; j++) {
+                    if (!isEmpty(j, u)) {
+                        return u;
+                    }
+                }
+            }
+        }
+        return limit;
+    }
+
+    private boolean isEmpty(int level, long tick) {
+        Timer<K, V> head = wheel[level][(int) (tick >>> (SLOT_BITS * level)) & (SLOTS - 1)];
+        return head.next == head;
+    }
+
+    /** Verteilt die Slots aller Ebenen, deren Grenze auf Tick t liegt, auf die unteren Ebenen. */
+    private void cascadeAll(long t) {
+        for (int l = 1; l < LEVELS && (t & ((1L << (SLOT_BITS * l)) - 1)) == 0; l++) {
+            cascade(l, (int) (t >>> (SLOT_BITS * l)) & (SLOTS - 1));
+        }
+    }
+
+    private void cascade(int level, int slot) {
+        Timer<K, V> head = wheel[level][slot];
+        while (head.next != head) {
+            Timer<K, V> e = head.next;
+            e.unlink();
+            schedule(e);
+        }
+    }
+
+    /** Entfernt abgelaufene Einträge; wird vom Hintergrund-Thread aufgerufen. */
+    synchronized void sweep() {
+        advance(clock.getAsLong());
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        return insert(key, value, defaultTtl, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Inserts an entry with its own time to live; an existing entry gets the new value and TTL.
+     * @param key key.
+     * @param value value.
+     * @param ttl time to live.
+     * @param unit unit of ttl.
+     * @return old value, null if key was not contained or had expired.
+     */
+    public synchronized V insert(K key, V value, long ttl, TimeUnit unit) {
+        long now = clock.getAsLong();
+        long deadline = now + unit.toMillis(ttl);
+        Timer<K, V> t = dict.search(key);
+        V old = null;
+        if (t != null) {
+            if (t.deadline > now) {
+                old = t.value;
+            }
+            t.unlink();
+            t.value = value;
+            t.deadline = deadline;
+        } else {
+            t = new Timer<>(key, value, deadline);
+            dict.insert(key, t);
+        }
+        schedule(t);
+        return old;
+    }
+
+    @Override
+    public synchronized V search(K key) {
+        Timer<K, V> t = dict.search(key);
+        if (t == null) {
+            return null;
+        }
+        if (t.deadline <= clock.getAsLong()) {  // abgelaufen, gleich entfernen
+            t.unlink();
+            dict.remove(key);
+            return null;
+        }
+        return t.value;
+    }
+
+    @Override
+    public synchronized V remove(K key) {
+        Timer<K, V> t = dict.remove(key);
+        if (t == null) {
+            return null;
+        }
+        t.unlink();
+        return t.deadline > clock.getAsLong() ? t.value : null;
+    }
+
+    /** Returns the number of entries that have not expired. */
+    @Override
+    public synchronized int size() {
+        long now = clock.getAsLong();
+        advance(now);
+        // im laufenden Tick abgelaufene Einträge; liegt der Tick auf einer Slot-Grenze,
+        // stehen seine Einträge noch auf einer höheren Ebene
+        cascadeAll(currentTick);
+        Timer<K, V> head = wheel[0][(int) currentTick & (SLOTS - 1)];
+        for (Timer<K, V> e = head.next; e != head; ) {
+            Timer<K, V> next = e.next;
+            if (e.deadline <= now) {
+                e.unlink();
+                dict.remove(e.key);
+            }
+            e = next;
+        }
+        return dict.size();
+    }
+
+    /**
+     * Returns an iterator over a copy of the live entries, taken under the lock,
+     * so that the sweeper may remove entries while the iterator is used.
+     */
+    @Override
+    public synchronized Iterator<Entry<K, V>> iterator() {
+        long now = clock.getAsLong();
+        advance(now);
+        List<Entry<K, V>> live = new ArrayList<>(dict.size());
+        for (Entry<K, Timer<K, V>> e : dict) {
+            Timer<K, V> t = e.getValue();
+            if (t.deadline > now) {
+                live.add(new Entry<>(t.key, t.value));
+            }
+        }
+        return live.iterator();
+    }
+
+    /** Stops the background sweeper. */
+    @Override
+    public void close() {
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+    }
+}
@@ -1,3 +1,8 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.lang.Math;
@@ -5,14 +10,34 @@ import java.lang.Math;
 public class HashDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
 
     private LinkedList<Entry<K, V>>[] data;
+    private BinaryTreeDictionary<K, V>[] trees;  // Buckets, die in einen AVL-Baum umgewandelt wurden
+    private final boolean treeify;
     private int size;
     private int load;
 
-    @SuppressWarnings("unchecked")
+    static final int TREEIFY_THRESHOLD = 8;  // längere Ketten werden zum Baum
+    static final int UNTREEIFY_THRESHOLD = 6;  // kleinere Bäume werden wieder zur Kette
+
     public HashDictionary(int load) {
+        this(load, false);
+    }
+
+    /**
+     * Creates an empty hash dictionary.
+     * With treeify set, every bucket chain longer than TREEIFY_THRESHOLD is converted into
+     * an AVL tree ordered by the keys' compareTo and converted back when it shrinks to
+     * UNTREEIFY_THRESHOLD entries. Lookups in a bucket then take O(log n) even if
+     * many keys have the same hash code.
+     * @param load initial table size.
+     * @param treeify true, if long chains are to be converted into trees.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public HashDictionary(int load, boolean treeify) {
         this.size = 0;
         this.load = load;
+        this.treeify = treeify;
         this.data = new LinkedList[load];
+        this.trees = treeify ? new BinaryTreeDictionary[load] : null;
     }
 
     private static boolean isPrime(int n) {
@@ -26,9 +51,21 @@ public class HashDictionary<K extends Comparable<? super K>, V> implements Dicti
 
     @Override
     public V insert(K key, V value) {
+        if (size >= data.length) {  // vor beiden Pfaden, auch Baum-Buckets lassen size wachsen
+            ensureCapacity();
+        }
         int adr = searchAdr(key);
 
-        if (search(key) != null) {
+        if (trees != null && trees[adr] != null) {  // Bucket ist ein Baum
+            int before = trees[adr].size();
+            V old = trees[adr].insert(key, value);
+            if (trees[adr].size() > before) {
+                size++;
+            }
+            return old;
+        }
+
+        if (data[adr] != null) {
             for (var e : data[adr]) {
                 if (e.getKey().equals(key)) {
                     V old = e.getValue();
@@ -38,58 +75,55 @@ public class HashDictionary<K extends Comparable<? super K>, V> implements Dicti
             }
         }
 
-        if (size == data.length) { ensureCapacity(); }
         if (data[adr] == null) {
             data[adr] = new LinkedList<>();
-            data[adr].add(new Entry<K, V>(key, value));
-            size++;
-        } else {
-            data[adr].add(new Entry<K, V>(key, value));
-            size++;
+        }
+        data[adr].add(new Entry<K, V>(key, value));
+        size++;
+        if (treeify && data[adr].size() > TREEIFY_THRESHOLD) {
+            treeifyBin(adr);
         }
         return null;
     }
 
-    @SuppressWarnings("unchecked")
+    /* Wandelt die Kette an adr in einen Baum um */
+    private void treeifyBin(int adr) {
+        BinaryTreeDictionary<K, V> tree = new BinaryTreeDictionary<>();
+        for (Entry<K, V> e : data[adr]) {
+            tree.insert(e.getKey(), e.getValue());
+        }
+        trees[adr] = tree;
+        data[adr] = null;
+    }
+
     private void ensureCapacity() {
-        size = 0;
         int newload = load * 2;
 
         while (!isPrime(newload)) {
             ++newload;
         }
 
-        HashDictionary<K, V> newdata = new HashDictionary<>(newload);
-        for (var v : data) {
-            if (v == null) continue;
-            for (Entry<K, V> e : v) {
-                newdata.insert(e.getKey(), e.getValue());
-            }
+        HashDictionary<K, V> newdata = new HashDictionary<>(newload, treeify);
+        for (Entry<K, V> e : this) {
+            newdata.insert(e.getKey(), e.getValue());
         }
 
-        data = new LinkedList[newload];
+        data = newdata.data;
+        trees = newdata.trees;
         load = newload;
-
-        for (var v : newdata.data) {
-            if (v == null) continue;
-            for (Entry<K, V> e : v) {
-                insert(e.getKey(), e.getValue());
-            }
-        }
+        size = newdata.size;
     }
 
     private int searchAdr(K key) {
-        int adr = 0;
-        int hash = key.hashCode() > 0 ? adr : -adr;  // handle hashcode overflow
-        // not sure if this always works fine: adr = hash % (data.length - 1);
-        adr =  hash - (int) Math.floor(hash / data.length) * data.length;  // mathematical modulo
-
-        return adr;
+        return Math.floorMod(key.hashCode(), data.length);  // mathematical modulo, also for negative hash codes
     }
 
     @Override
     public V search(K key) {
         int adr = searchAdr(key);
+        if (trees != null && trees[adr] != null) {
+            return trees[adr].search(key);
+        }
         if (data[adr] != null) {
             for (var e : data[adr]) {
                 if (e.getKey().equals(key)) {
@@ -103,6 +137,25 @@ public class HashDictionary<K extends Comparable<? super K>, V> implements Dicti
     @Override
     public V remove(K key) {
         int adr = searchAdr(key);
+        if (trees != null && trees[adr] != null) {
+            BinaryTreeDictionary<K, V> tree = trees[adr];
+            int before = tree.size();
+            V old = tree.remove(key);
+            if (tree.size() < before) {
+                size--;
+            }
+            if (tree.size() <= UNTREEIFY_THRESHOLD) {  // zurück zur Kette
+                data[adr] = new LinkedList<>();
+                for (Entry<K, V> e : tree) {
+                    data[adr].add(e);
+                }
+                trees[adr] = null;
+            }
+            return old;
+        }
+        if (data[adr] == null) {
+            return null;
+        }
 
         for (var e : data[adr]) {
             if (e.getKey().equals(key)) {
@@ -115,11 +168,107 @@ public class HashDictionary<K extends Comparable<? super K>, V> implements Dicti
         return null;
     }
 
+    /**
+     * Writes a binary snapshot of this dictionary (see DictionarySnapshot).
+     * @param file target file, will be overwritten.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @throws IOException if the file cannot be written.
+     */
+    public void snapshot(Path file, DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            snapshot(out, kc, vc);
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of this dictionary to out (see DictionarySnapshot).
+     * @param out target stream, is flushed but not closed.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void snapshot(OutputStream out, DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        DictionarySnapshot.write(out, this, kc, vc, treeify ? DictionarySnapshot.TREEIFY : 0);
+    }
+
+    /**
+     * Restores a dictionary from a snapshot file.
+     * @param file snapshot file.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @return restored dictionary.
+     * @throws IOException if the file cannot be read or is no valid snapshot.
+     */
+    public static <K extends Comparable<? super K>, V> HashDictionary<K, V> restore(Path file,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return restore(in, kc, vc);
+        }
+    }
+
+    /**
+     * Restores a dictionary from a snapshot stream in one pass:
+     * the table is created with its final size and every entry is appended
+     * to its bucket without search or rehashing.
+     * A dictionary written with treeify set is restored with treeify set,
+     * and chains longer than TREEIFY_THRESHOLD are converted into trees afterwards.
+     * @param in snapshot stream, is not closed.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @return restored dictionary.
+     * @throws IOException if the stream cannot be read or is no valid snapshot.
+     */
+    public static <K extends Comparable<? super K>, V> HashDictionary<K, V> restore(InputStream in,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        DictionarySnapshot.Reader<K, V> rd = new DictionarySnapshot.Reader<>(in, kc, vc);
+        int load = Math.max(3, rd.size + rd.size / 3 + 1);  // Belegungsfaktor ca. 0.75
+        while (!isPrime(load)) {
+            ++load;
+        }
+        HashDictionary<K, V> dict = new HashDictionary<>(load, rd.treeify);
+        for (int i = 0; i < rd.size; i++) {
+            Entry<K, V> e = rd.entry();
+            int adr = dict.searchAdr(e.getKey());
+            if (dict.data[adr] == null) {
+                dict.data[adr] = new LinkedList<>();
+            }
+            dict.data[adr].add(e);
+        }
+        dict.size = rd.size;
+        if (dict.treeify) {
+            for (int adr = 0; adr < load; adr++) {
+                if (dict.data[adr] != null && dict.data[adr].size() > TREEIFY_THRESHOLD) {
+                    dict.treeifyBin(adr);
+                }
+            }
+        }
+        return dict;
+    }
+
     @Override
     public int size() {
         return size;
     }
 
+    /** Aktuelle Tabellengröße. */
+    int capacity() {
+        return data.length;
+    }
+
+    /** Anzahl der Buckets, die als Baum gespeichert sind. */
+    int treeBins() {
+        int n = 0;
+        if (trees != null) {
+            for (BinaryTreeDictionary<K, V> t : trees) {
+                if (t != null) {
+                    n++;
+                }
+            }
+        }
+        return n;
+    }
+
     @Override
     public Iterator<Entry<K, V>> iterator() {
         return new HashDictionaryIterator();
@@ -136,9 +285,15 @@ public class HashDictionary<K extends Comparable<? super K>, V> implements Dicti
                 return true;
             }
             while (++index < data.length) {
-                if (data[index] != null) {
+                if (trees != null && trees[index] != null) {
+                    it = trees[index].iterator();
+                } else if (data[index] != null) {
                     it = data[index].iterator();
-                    return it.hasNext();
+                } else {
+                    continue;
+                }
+                if (it.hasNext()) {  // Kette kann nach remove leer sein
+                    return true;
                 }
             }
             return false;
@@ -0,0 +1,96 @@
+/**
+ * Latency histogram with logarithmic buckets in the style of an HDR histogram.
+ * <p>
+ * Values below 64 are counted exactly. Above, every power of two is divided into
+ * 32 sub-buckets, so a recorded value is off by at most 1/32 (about 3%).
+ * Recording is O(1) and allocation-free; histograms of several threads can be added.
+ * Not thread-safe: every thread records into its own histogram.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BITS = 6;
+    private static final int HALF = 1 << (SUB_BITS - 1);
+
+    private final long[] counts = new long[(64 - SUB_BITS + 2) * HALF];
+    private long total = 0;
+    private long sum = 0;
+    private long max = 0;
+
+    /**
+     * Records a value.
+     * @param value value, e.g. latency in ns; negative values are counted as 0.
+     */
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        }
+        counts[index(value)]++;
+        total++;
+        sum += value;
+        max = Math.max(max, value);
+    }
+
+    private static int index(long v) {
+        int msb = 63 - Long.numberOfLeadingZeros(v);
+        if (msb < SUB_BITS) {
+            return (int) v;
+        }
+        int shift = msb - SUB_BITS + 1;
+        return shift * HALF + (int) (v >>> shift);
+    }
+
+    /** Größter Wert, der im Bucket idx landet. */
+    private static long highestValue(int idx) {
+        if (idx < 2 * HALF) {
+            return idx;
+        }
+        int shift = (idx >> (SUB_BITS - 1)) - 1;
+        long sub = idx - (long) shift * HALF;
+        return ((sub + 1) << shift) - 1;
+    }
+
+    /**
+     * Adds all values of other to this histogram.
+     * @param other histogram to be added.
+     */
+    public void add(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        sum += other.sum;
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * Returns the value below or at which p percent of the recorded values are.
+     * @param p percentile between 0 and 100.
+     * @return upper bound of the bucket containing the percentile, 0 if empty.
+     */
+    public long percentile(double p) {
+        if (total == 0) {
+            return 0;
+        }
+        long target = Math.max(1, (long) Math.ceil(p / 100 * total));
+        long n = 0;
+        for (int i = 0; i < counts.length; i++) {
+            n += counts[i];
+            if (n >= target) {
+                return Math.min(highestValue(i), max);
+            }
+        }
+        return max;
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    public double mean() {
+        return total == 0 ? 0 : (double) sum / total;
+    }
+}
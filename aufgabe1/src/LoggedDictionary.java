@@ -0,0 +1,116 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Dictionary wrapper that makes every insert and remove durable in a WriteAheadLog.
+ * <p>
+ * Any Dictionary implementation can be wrapped. When the wrapper is created, the log is
+ * replayed into the wrapped dictionary, so mutations of earlier runs are restored.
+ * A mutation is applied and appended to the log under the lock of this wrapper and
+ * then waits outside the lock for the group commit, so that concurrent writers
+ * share one fsync. Null values are rejected, because the log cannot represent them.
+ */
+public class LoggedDictionary implements Dictionary<String, String>, Closeable {
+
+    private final Dictionary<String, String> dict;
+    private final WriteAheadLog log;
+
+    /**
+     * Wraps dict and replays the log file into it.
+     * @param dict dictionary to be wrapped, usually freshly loaded.
+     * @param logFile log file, is created if it does not exist.
+     * @throws IOException if the log cannot be read or written.
+     */
+    public LoggedDictionary(Dictionary<String, String> dict, Path logFile) throws IOException {
+        this.dict = dict;
+        this.log = new WriteAheadLog(logFile, new WriteAheadLog.Replay() {
+            @Override
+            public void insert(String key, String value) {
+                dict.insert(key, value);
+            }
+
+            @Override
+            public void remove(String key) {
+                dict.remove(key);
+            }
+        });
+    }
+
+    @Override
+    public String insert(String key, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        String old;
+        long lsn;
+        synchronized (this) {
+            old = dict.insert(key, value);
+            lsn = log.append(WriteAheadLog.INSERT, key, value);
+        }
+        sync(lsn);
+        return old;
+    }
+
+    @Override
+    public String remove(String key) {
+        String old;
+        long lsn;
+        synchronized (this) {
+            old = dict.remove(key);
+            if (old == null) {
+                return null;  // nichts zu protokollieren
+            }
+            lsn = log.append(WriteAheadLog.REMOVE, key, null);
+        }
+        sync(lsn);
+        return old;
+    }
+
+    private void sync(long lsn) {
+        try {
+            log.sync(lsn);
+        } catch (IOException e) {
+            throw new UncheckedIOException("write-ahead log failed", e);
+        }
+    }
+
+    @Override
+    public synchronized String search(String key) {
+        return dict.search(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return dict.size();
+    }
+
+    /**
+     * Returns an iterator over the wrapped dictionary. It must not be used concurrently with mutations.
+     */
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return dict.iterator();
+    }
+
+    /**
+     * Returns the write-ahead log, e.g. to truncate it after the dictionary has been saved.
+     * @return the log of this dictionary.
+     */
+    public WriteAheadLog log() {
+        return log;
+    }
+
+    /**
+     * Closes the log and the wrapped dictionary, if it is Closeable.
+     */
+    @Override
+    public void close() throws IOException {
+        log.close();
+        if (dict instanceof Closeable) {
+            ((Closeable) dict).close();
+        }
+    }
+}
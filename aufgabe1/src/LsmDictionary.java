@@ -0,0 +1,441 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Implementation of the Dictionary interface as log-structured merge tree in a local directory.
+ * <p>
+ * Writes go into an in-memory BinaryTreeDictionary (memtable). A full memtable is frozen
+ * and written by a background thread as immutable SortedTable file. remove writes a tombstone.
+ * A search looks into the memtable, the frozen memtables and the files, newest first.
+ * <p>
+ * Files are compacted size-tiered: as soon as COMPACTION_FAN_IN files of about the same
+ * size are adjacent in age, the background thread merges them into one file.
+ * Tombstones are dropped when the oldest file takes part in a merge.
+ * The list of live files is kept in a MANIFEST file that is replaced atomically.
+ * <p>
+ * Entries of the memtable are only durable after a flush or close.
+ * Keys must not contain surrogate characters (see SortedTable).
+ */
+public class LsmDictionary implements Dictionary<String, String>, Closeable {
+
+    private static final String TOMBSTONE = new String("<tombstone>");  // Vergleich über Identität
+    private static final String MANIFEST = "MANIFEST";
+    private static final int DEF_MEMTABLE_SIZE = 64 * 1024;
+    private static final int MAX_FROZEN = 2;  // danach warten Schreiber auf den Hintergrund-Thread
+    static final int COMPACTION_FAN_IN = 4;
+
+    private final Path dir;
+    private final int memtableSize;
+    private final ExecutorService background = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "lsm-compaction");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private BinaryTreeDictionary<String, String> memtable = new BinaryTreeDictionary<>();
+    private final LinkedList<BinaryTreeDictionary<String, String>> frozen = new LinkedList<>();  // neueste zuerst
+    private final List<Table> tables = new ArrayList<>();  // neueste zuerst
+    private long nextFileNumber = 0;
+    private int size = 0;
+    private IOException failure;  // Fehler des Hintergrund-Threads
+
+    private static class Table {
+        final Path file;
+        final SortedTable table;
+        final long bytes;
+
+        Table(Path file) throws IOException {
+            this.file = file;
+            this.table = new SortedTable(file);
+            this.bytes = Files.size(file);
+        }
+    }
+
+    public LsmDictionary(Path dir) throws IOException {
+        this(dir, DEF_MEMTABLE_SIZE);
+    }
+
+    /**
+     * Opens or creates an LSM dictionary in dir.
+     * @param dir directory for the table files.
+     * @param memtableSize number of entries after which the memtable is flushed.
+     * @throws IOException if the directory cannot be read.
+     */
+    public LsmDictionary(Path dir, int memtableSize) throws IOException {
+        this.dir = dir;
+        this.memtableSize = memtableSize;
+        Files.createDirectories(dir);
+        Path manifest = dir.resolve(MANIFEST);
+        if (Files.exists(manifest)) {
+            for (String name : Files.readAllLines(manifest, StandardCharsets.UTF_8)) {
+                if (!name.isEmpty()) {
+                    tables.add(new Table(dir.resolve(name)));
+                    nextFileNumber = Math.max(nextFileNumber, fileNumber(name) + 1);
+                }
+            }
+        }
+        for (Iterator<Entry<String, String>> it = iterator(); it.hasNext(); it.next()) {
+            size++;
+        }
+    }
+
+    private static long fileNumber(String name) {
+        return Long.parseLong(name.substring(0, name.indexOf('.')));
+    }
+
+    // ---------------- Dictionary ----------------
+
+    @Override
+    public synchronized String search(String key) {
+        checkFailure();
+        String v = memtable.search(key);
+        if (v != null) {
+            return v == TOMBSTONE ? null : v;
+        }
+        for (BinaryTreeDictionary<String, String> m : frozen) {
+            v = m.search(key);
+            if (v != null) {
+                return v == TOMBSTONE ? null : v;
+            }
+        }
+        for (Table t : tables) {
+            Entry<String, String> e = t.table.lookup(key);
+            if (e != null) {
+                return e.getValue();  // null bei Grabstein
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public synchronized String insert(String key, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("null values are not supported");
+        }
+        String old = search(key);
+        memtable.insert(key, value);
+        if (old == null) {
+            size++;
+        }
+        maybeFlush();
+        return old;
+    }
+
+    @Override
+    public synchronized String remove(String key) {
+        String old = search(key);
+        if (old != null) {
+            memtable.insert(key, TOMBSTONE);
+            size--;
+            maybeFlush();
+        }
+        return old;
+    }
+
+    @Override
+    public synchronized int size() {
+        return size;
+    }
+
+    /**
+     * Returns the entries in ascending key order.
+     * The iterator works on a snapshot of the memtables and the current files.
+     */
+    @Override
+    public synchronized Iterator<Entry<String, String>> iterator() {
+        List<Iterator<Entry<String, String>>> sources = new ArrayList<>();
+        sources.add(snapshot(memtable));
+        for (BinaryTreeDictionary<String, String> m : frozen) {
+            sources.add(snapshot(m));
+        }
+        for (Table t : tables) {
+            sources.add(t.table.scan(null, null, true));
+        }
+        return merge(sources, true);
+    }
+
+    private static Iterator<Entry<String, String>> snapshot(BinaryTreeDictionary<String, String> m) {
+        List<Entry<String, String>> list = new ArrayList<>(m.size());
+        for (Entry<String, String> e : m) {
+            list.add(new Entry<>(e.getKey(), e.getValue() == TOMBSTONE ? null : e.getValue()));
+        }
+        return list.iterator();
+    }
+
+    // ---------------- Flush und Kompaktierung ----------------
+
+    private void maybeFlush() {
+        if (memtable.size() >= memtableSize) {
+            freezeMemtable();
+        }
+    }
+
+    private void freezeMemtable() {
+        while (frozen.size() >= MAX_FROZEN && failure == null) {  // Gegendruck: Schreiber warten
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("interrupted while waiting for flush", e);
+            }
+        }
+        checkFailure();
+        BinaryTreeDictionary<String, String> m = memtable;
+        memtable = new BinaryTreeDictionary<>();
+        frozen.addFirst(m);
+        background.execute(() -> flush(m));
+    }
+
+    /** Schreibt eine eingefrorene Memtable als Datei (Hintergrund-Thread). */
+    private void flush(BinaryTreeDictionary<String, String> m) {
+        try {
+            Path file = newFile();
+            try (var os = Files.newOutputStream(file)) {
+                SortedTable.write(os, () -> snapshot(m), m.size(), true);
+            }
+            Table t = new Table(file);
+            synchronized (this) {
+                List<String> names = names(tables);
+                names.add(0, file.getFileName().toString());
+                writeManifest(names);
+                tables.add(0, t);
+                frozen.remove(m);
+                notifyAll();
+            }
+            compactIfNeeded();
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        List<Table> run;
+        boolean includesOldest;
+        synchronized (this) {
+            int[] r = findRun();
+            if (r == null) {
+                return;
+            }
+            run = new ArrayList<>(tables.subList(r[0], r[1]));
+            includesOldest = r[1] == tables.size();
+        }
+        List<Iterator<Entry<String, String>>> sources = new ArrayList<>();
+        long entries = 0;
+        for (Table t : run) {
+            sources.add(t.table.scan(null, null, true));
+            entries += t.table.entryCount();
+        }
+        Path file = newFile();
+        // ohne älteste Datei müssen Grabsteine erhalten bleiben, sie verdecken ältere Werte
+        Iterator<Entry<String, String>> merged = merge(sources, includesOldest);
+        try (var os = Files.newOutputStream(file)) {
+            SortedTable.write(os, () -> merged, (int) Math.min(entries, Integer.MAX_VALUE), true);
+        }
+        Table t = new Table(file);
+        synchronized (this) {
+            int pos = tables.indexOf(run.get(0));  // neue Dateien sind inzwischen vorne hinzugekommen
+            List<Table> next = new ArrayList<>(tables);
+            next.subList(pos, pos + run.size()).clear();
+            next.add(pos, t);
+            writeManifest(names(next));
+            tables.clear();
+            tables.addAll(next);
+        }
+        for (Table old : run) {
+            old.table.close();
+            Files.deleteIfExists(old.file);
+        }
+        compactIfNeeded();
+    }
+
+    /** Sucht COMPACTION_FAN_IN benachbarte Dateien derselben Größenklasse; liefert [von, bis) oder null. */
+    private int[] findRun() {
+        int start = 0;
+        for (int i = 1; i <= tables.size(); i++) {
+            if (i == tables.size() || tier(tables.get(i)) != tier(tables.get(start))) {
+                if (i - start >= COMPACTION_FAN_IN) {
+                    return new int[] {start, i};
+                }
+                start = i;
+            }
+        }
+        return null;
+    }
+
+    private static int tier(Table t) {
+        return 63 - Long.numberOfLeadingZeros(Math.max(1, t.bytes)) >> 1;  // Faktor 4 pro Stufe
+    }
+
+    private synchronized Path newFile() {
+        return dir.resolve(String.format("%06d.sst", nextFileNumber++));
+    }
+
+    private static List<String> names(List<Table> list) {
+        List<String> names = new ArrayList<>();
+        for (Table t : list) {
+            names.add(t.file.getFileName().toString());
+        }
+        return names;
+    }
+
+    private void writeManifest(List<String> names) throws IOException {
+        Path tmp = dir.resolve(MANIFEST + ".tmp");
+        Files.write(tmp, names, StandardCharsets.UTF_8);
+        Files.move(tmp, dir.resolve(MANIFEST), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    private synchronized void fail(IOException e) {
+        failure = e;
+        notifyAll();
+    }
+
+    private void checkFailure() {
+        if (failure != null) {
+            throw new UncheckedIOException("background flush failed", failure);
+        }
+    }
+
+    /**
+     * Writes the memtable to a file and waits until all background work is done.
+     * @throws IOException if writing fails.
+     */
+    public void flush() throws IOException {
+        synchronized (this) {
+            if (memtable.size() > 0) {
+                freezeMemtable();
+            }
+        }
+        try {
+            background.submit(() -> { }).get();
+        } catch (Exception e) {
+            throw new IOException(e);
+        }
+        synchronized (this) {
+            if (failure != null) {
+                throw failure;
+            }
+        }
+    }
+
+    /**
+     * Flushes the memtable, stops the background thread and closes the table files.
+     * The thread and the files are released even if the flush fails.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException error = null;
+        try {
+            flush();
+        } catch (IOException e) {
+            error = e;
+        } finally {
+            error = release(error);
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /* Beendet den Hintergrund-Thread und schließt alle Tabellen; Fehler werden an error angehängt */
+    private IOException release(IOException error) {
+        background.shutdown();
+        try {
+            background.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            for (Table t : tables) {
+                try {
+                    t.table.close();
+                } catch (IOException e) {
+                    if (error == null) {
+                        error = e;
+                    } else {
+                        error.addSuppressed(e);
+                    }
+                }
+            }
+        }
+        return error;
+    }
+
+    // ---------------- Mischen ----------------
+
+    /**
+     * Mischt sortierte Quellen (neueste zuerst); bei gleichem Schlüssel gewinnt die neueste Quelle.
+     * Ist dropTombstones gesetzt, werden Grabsteine (Wert null) übersprungen.
+     */
+    static Iterator<Entry<String, String>> merge(List<Iterator<Entry<String, String>>> sources, boolean dropTombstones) {
+        class Head {
+            final Entry<String, String> entry;
+            final int source;
+
+            Head(Entry<String, String> entry, int source) {
+                this.entry = entry;
+                this.source = source;
+            }
+        }
+        PriorityQueue<Head> pq = new PriorityQueue<>((a, b) -> {
+            int c = a.entry.getKey().compareTo(b.entry.getKey());
+            return c != 0 ? c : Integer.compare(a.source, b.source);
+        });
+        for (int i = 0; i < sources.size(); i++) {
+            if (sources.get(i).hasNext()) {
+                pq.add(new Head(sources.get(i).next(), i));
+            }
+        }
+        return new Iterator<>() {
+            private Entry<String, String> next = advance();
+
+            private Entry<String, String> advance() {
+                while (!pq.isEmpty()) {
+                    Head h = pq.poll();
+                    refill(h.source);
+                    while (!pq.isEmpty() && pq.peek().entry.getKey().equals(h.entry.getKey())) {
+                        refill(pq.poll().source);  // ältere Versionen verwerfen
+                    }
+                    if (h.entry.getValue() != null || !dropTombstones) {
+                        return h.entry;
+                    }
+                }
+                return null;
+            }
+
+            private void refill(int source) {
+                if (sources.get(source).hasNext()) {
+                    pq.add(new Head(sources.get(source).next(), source));
+                }
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<String, String> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry<String, String> e = next;
+                next = advance();
+                return e;
+            }
+        };
+    }
+}
@@ -0,0 +1,333 @@
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of the Dictionary interface as red-black tree
+ * (Cormen, Leiserson, Rivest, Stein: Introduction to Algorithms, chapter 13).
+ * <p>
+ * In contrast to the AVL tree of BinaryTreeDictionary, which rebalances every node on
+ * the search path and may rotate O(log n) times on remove, the fix-up after an update
+ * stops as soon as the red-black properties hold again: an insert needs at most 2,
+ * a remove at most 3 rotations, and the recolorings are amortized O(1) per update.
+ * The tree is somewhat less balanced (height at most 2 log2(n+1)), so searches may
+ * compare a little more often.
+ * <p>
+ * Insert and remove work iteratively with parent references; the leaves are
+ * represented by a shared black sentinel node.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class RedBlackTreeDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private static final boolean RED = true;
+    private static final boolean BLACK = false;
+
+    private static class Node<K, V> {
+        K key;
+        V value;
+        boolean color = BLACK;
+        Node<K, V> left;
+        Node<K, V> right;
+        Node<K, V> parent;
+    }
+
+    private final Node<K, V> nil = new Node<>();  // Wächter für alle Blätter und den Elternknoten der Wurzel
+    private Node<K, V> root = nil;
+    private int size = 0;
+    private long rotations = 0;
+
+    public RedBlackTreeDictionary() {
+        nil.left = nil;
+        nil.right = nil;
+        nil.parent = nil;
+    }
+
+    private Node<K, V> find(K key) {
+        Node<K, V> p = root;
+        while (p != nil) {
+            int c = key.compareTo(p.key);
+            if (c < 0) {
+                p = p.left;
+            } else if (c > 0) {
+                p = p.right;
+            } else {
+                return p;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public V search(K key) {
+        Node<K, V> p = find(key);
+        return p == null ? null : p.value;
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        Node<K, V> parent = nil;
+        Node<K, V> p = root;
+        int c = 0;
+        while (p != nil) {
+            parent = p;
+            c = key.compareTo(p.key);
+            if (c < 0) {
+                p = p.left;
+            } else if (c > 0) {
+                p = p.right;
+            } else {  // Schlüssel vorhanden, nur Wert ersetzen
+                V old = p.value;
+                p.value = value;
+                return old;
+            }
+        }
+        Node<K, V> z = new Node<>();
+        z.key = key;
+        z.value = value;
+        z.color = RED;
+        z.left = nil;
+        z.right = nil;
+        z.parent = parent;
+        if (parent == nil) {
+            root = z;
+        } else if (c < 0) {
+            parent.left = z;
+        } else {
+            parent.right = z;
+        }
+        size++;
+        insertFixup(z);
+        return null;
+    }
+
+    private void insertFixup(Node<K, V> z) {
+        while (z.parent.color == RED) {  // rot-rot-Konflikt zwischen z und seinem Elternknoten
+            Node<K, V> g = z.parent.parent;
+            if (z.parent == g.left) {
+                Node<K, V> uncle = g.right;
+                if (uncle.color == RED) {  // Fall 1: umfärben, Konflikt wandert 2 Ebenen nach oben
+                    z.parent.color = BLACK;
+                    uncle.color = BLACK;
+                    g.color = RED;
+                    z = g;
+                } else {
+                    if (z == z.parent.right) {  // Fall 2: auf Fall 3 zurückführen
+                        z = z.parent;
+                        rotateLeft(z);
+                    }
+                    z.parent.color = BLACK;  // Fall 3: fertig nach einer Rotation
+                    g.color = RED;
+                    rotateRight(g);
+                }
+            } else {  // symmetrisch
+                Node<K, V> uncle = g.left;
+                if (uncle.color == RED) {
+                    z.parent.color = BLACK;
+                    uncle.color = BLACK;
+                    g.color = RED;
+                    z = g;
+                } else {
+                    if (z == z.parent.left) {
+                        z = z.parent;
+                        rotateRight(z);
+                    }
+                    z.parent.color = BLACK;
+                    g.color = RED;
+                    rotateLeft(g);
+                }
+            }
+        }
+        root.color = BLACK;
+    }
+
+    @Override
+    public V remove(K key) {
+        Node<K, V> z = find(key);
+        if (z == null) {
+            return null;
+        }
+        V old = z.value;
+        Node<K, V> y = z;  // tatsächlich entfernter Knoten
+        if (z.left != nil && z.right != nil) {  // zwei Kinder: Nachfolger entfernen, Inhalt nach z
+            y = z.right;
+            while (y.left != nil) {
+                y = y.left;
+            }
+            z.key = y.key;
+            z.value = y.value;
+        }
+        Node<K, V> x = y.left != nil ? y.left : y.right;
+        x.parent = y.parent;  // auch beim Wächter, removeFixup braucht den Elternknoten
+        if (y.parent == nil) {
+            root = x;
+        } else if (y == y.parent.left) {
+            y.parent.left = x;
+        } else {
+            y.parent.right = x;
+        }
+        if (y.color == BLACK) {
+            removeFixup(x);
+        }
+        nil.parent = nil;
+        size--;
+        return old;
+    }
+
+    private void removeFixup(Node<K, V> x) {
+        while (x != root && x.color == BLACK) {  // x trägt ein zusätzliches Schwarz
+            if (x == x.parent.left) {
+                Node<K, V> w = x.parent.right;
+                if (w.color == RED) {  // Fall 1: Geschwister schwarz machen
+                    w.color = BLACK;
+                    x.parent.color = RED;
+                    rotateLeft(x.parent);
+                    w = x.parent.right;
+                }
+                if (w.left.color == BLACK && w.right.color == BLACK) {  // Fall 2: umfärben, nach oben
+                    w.color = RED;
+                    x = x.parent;
+                } else {
+                    if (w.right.color == BLACK) {  // Fall 3: auf Fall 4 zurückführen
+                        w.left.color = BLACK;
+                        w.color = RED;
+                        rotateRight(w);
+                        w = x.parent.right;
+                    }
+                    w.color = x.parent.color;  // Fall 4: fertig nach einer Rotation
+                    x.parent.color = BLACK;
+                    w.right.color = BLACK;
+                    rotateLeft(x.parent);
+                    x = root;
+                }
+            } else {  // symmetrisch
+                Node<K, V> w = x.parent.left;
+                if (w.color == RED) {
+                    w.color = BLACK;
+                    x.parent.color = RED;
+                    rotateRight(x.parent);
+                    w = x.parent.left;
+                }
+                if (w.right.color == BLACK && w.left.color == BLACK) {
+                    w.color = RED;
+                    x = x.parent;
+                } else {
+                    if (w.left.color == BLACK) {
+                        w.right.color = BLACK;
+                        w.color = RED;
+                        rotateLeft(w);
+                        w = x.parent.left;
+                    }
+                    w.color = x.parent.color;
+                    x.parent.color = BLACK;
+                    w.left.color = BLACK;
+                    rotateRight(x.parent);
+                    x = root;
+                }
+            }
+        }
+        x.color = BLACK;
+    }
+
+    private void rotateLeft(Node<K, V> p) {
+        Node<K, V> q = p.right;
+        p.right = q.left;
+        if (q.left != nil) {
+            q.left.parent = p;
+        }
+        replaceChild(p, q);
+        q.left = p;
+        p.parent = q;
+        rotations++;
+    }
+
+    private void rotateRight(Node<K, V> p) {
+        Node<K, V> q = p.left;
+        p.left = q.right;
+        if (q.right != nil) {
+            q.right.parent = p;
+        }
+        replaceChild(p, q);
+        q.right = p;
+        p.parent = q;
+        rotations++;
+    }
+
+    /** Hängt q an die Stelle von p unter dessen Elternknoten. */
+    private void replaceChild(Node<K, V> p, Node<K, V> q) {
+        q.parent = p.parent;
+        if (p.parent == nil) {
+            root = q;
+        } else if (p == p.parent.left) {
+            p.parent.left = q;
+        } else {
+            p.parent.right = q;
+        }
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of rotations since the creation of the tree.
+     * @return number of single rotations.
+     */
+    public long rotations() {
+        return rotations;
+    }
+
+    /**
+     * Returns the height of the tree.
+     * @return height, -1 for the empty tree.
+     */
+    public int getHeight() {
+        return heightR(root);
+    }
+
+    private int heightR(Node<K, V> p) {
+        return p == nil ? -1 : Math.max(heightR(p.left), heightR(p.right)) + 1;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+
+            private Node<K, V> current = leftMostDescendant(root);  // nächster Knoten, nil am Ende
+
+            @Override
+            public boolean hasNext() {
+                return current != nil;
+            }
+
+            @Override
+            public Entry<K, V> next() {
+                if (current == nil) {
+                    throw new NoSuchElementException();
+                }
+                Entry<K, V> e = new Entry<>(current.key, current.value);
+                if (current.right != nil) {
+                    current = leftMostDescendant(current.right);
+                } else {  // aufsteigen, bis man von links kommt
+                    Node<K, V> p = current;
+                    while (p.parent != nil && p == p.parent.right) {
+                        p = p.parent;
+                    }
+                    current = p.parent;
+                }
+                return e;
+            }
+        };
+    }
+
+    private Node<K, V> leftMostDescendant(Node<K, V> p) {
+        if (p == nil) {
+            return nil;
+        }
+        while (p.left != nil) {
+            p = p.left;
+        }
+        return p;
+    }
+}
@@ -0,0 +1,333 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Dictionary partitioned by key hash into shards, each owned by one thread (actor).
+ * <p>
+ * Every operation is sent as a message to the queue of the shard owning the key and
+ * executed there, so the per-shard Dictionary (any implementation) is only ever
+ * accessed by one thread and no locks are needed. The asynchronous methods return a
+ * CompletableFuture; the synchronous Dictionary methods wait for it. Batched variants
+ * send one message per shard for a whole list of keys.
+ * <p>
+ * Futures are completed on the shard thread, so dependent stages should be cheap or
+ * use an async variant with their own executor. Per shard the current and the peak
+ * queue depth and a histogram of the latency (enqueue to completion) are kept.
+ * <p>
+ * After close() every operation throws an IllegalStateException.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class ShardedDictionary<K, V> implements Dictionary<K, V>, Closeable {
+
+    private final Shard<K, V>[] shards;
+    private volatile boolean closed = false;
+
+    private static final class Shard<K, V> implements Runnable {
+        final Dictionary<K, V> dict;
+        final LinkedBlockingQueue<Message<K, V, ?>> queue = new LinkedBlockingQueue<>();
+        final LatencyHistogram latency = new LatencyHistogram();  // nur vom Shard-Thread geschrieben
+        final Thread thread;
+        volatile int peakDepth = 0;
+
+        Shard(Dictionary<K, V> dict, int i) {
+            this.dict = dict;
+            this.thread = new Thread(this, "shard-" + i);
+            thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                while (true) {
+                    Message<K, V, ?> m = queue.take();
+                    if (m.op == null) {  // close
+                        for (Message<K, V, ?> rest; (rest = queue.poll()) != null; ) {
+                            rest.result.completeExceptionally(closedException());
+                        }
+                        return;
+                    }
+                    int depth = queue.size() + 1;
+                    if (depth > peakDepth) {
+                        peakDepth = depth;
+                    }
+                    m.execute(dict);
+                    latency.record(System.nanoTime() - m.enqueued);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private static final class Message<K, V, R> {
+        final Function<Dictionary<K, V>, R> op;
+        final CompletableFuture<R> result = new CompletableFuture<>();
+        final long enqueued = System.nanoTime();
+
+        Message(Function<Dictionary<K, V>, R> op) {
+            this.op = op;
+        }
+
+        void execute(Dictionary<K, V> dict) {
+            try {
+                result.complete(op.apply(dict));
+            } catch (RuntimeException | Error e) {
+                result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Creates the shards and starts their threads.
+     * @param shards number of shards, e.g. the number of cores.
+     * @param factory creates the Dictionary of one shard.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public ShardedDictionary(int shards, Supplier<? extends Dictionary<K, V>> factory) {
+        if (shards < 1) {
+            throw new IllegalArgumentException("shards must be positive");
+        }
+        this.shards = new Shard[shards];
+        for (int i = 0; i < shards; i++) {
+            this.shards[i] = new Shard<>(factory.get(), i);
+        }
+        for (Shard<K, V> s : this.shards) {
+            s.thread.start();
+        }
+    }
+
+    private int shardOf(K key) {
+        int h = key.hashCode() * 0x9E3779B9;  // nicht mit dem Hash in den Shards korrelieren
+        return (int) (((h ^ (h >>> 16)) & 0xFFFFFFFFL) * shards.length >>> 32);
+    }
+
+    private static IllegalStateException closedException() {
+        return new IllegalStateException("dictionary is closed");
+    }
+
+    private <R> CompletableFuture<R> send(int shard, Function<Dictionary<K, V>, R> op) {
+        if (closed) {
+            throw closedException();
+        }
+        Message<K, V, R> m = new Message<>(op);
+        LinkedBlockingQueue<Message<K, V, ?>> queue = shards[shard].queue;
+        queue.add(m);
+        if (closed && queue.remove(m)) {  // close() kam dazwischen, Shard-Thread nimmt m evtl. nicht mehr
+            m.result.completeExceptionally(closedException());
+        }
+        return m.result;
+    }
+
+    public CompletableFuture<V> searchAsync(K key) {
+        return send(shardOf(key), d -> d.search(key));
+    }
+
+    public CompletableFuture<V> insertAsync(K key, V value) {
+        return send(shardOf(key), d -> d.insert(key, value));
+    }
+
+    public CompletableFuture<V> removeAsync(K key) {
+        return send(shardOf(key), d -> d.remove(key));
+    }
+
+    /**
+     * Searches several keys with one message per shard.
+     * @param keys keys to be searched.
+     * @return future of the values in the order of keys (null if not contained).
+     */
+    public CompletableFuture<List<V>> searchAllAsync(List<K> keys) {
+        return batch(keys, (d, i) -> d.search(keys.get(i)));
+    }
+
+    /**
+     * Inserts several entries with one message per shard.
+     * @param keys keys to be inserted.
+     * @param values values, values.get(i) belongs to keys.get(i).
+     * @return future of the old values in the order of keys.
+     */
+    public CompletableFuture<List<V>> insertAllAsync(List<K> keys, List<V> values) {
+        if (keys.size() != values.size()) {
+            throw new IllegalArgumentException("keys and values differ in size");
+        }
+        return batch(keys, (d, i) -> d.insert(keys.get(i), values.get(i)));
+    }
+
+    private interface BatchOp<K, V> {
+        V apply(Dictionary<K, V> dict, int index);
+    }
+
+    private CompletableFuture<List<V>> batch(List<K> keys, BatchOp<K, V> op) {
+        List<List<Integer>> perShard = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            perShard.add(new ArrayList<>());
+        }
+        for (int i = 0; i < keys.size(); i++) {
+            perShard.get(shardOf(keys.get(i))).add(i);
+        }
+        Object[] res = new Object[keys.size()];
+        List<CompletableFuture<Void>> parts = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            List<Integer> idx = perShard.get(s);
+            if (!idx.isEmpty()) {
+                parts.add(send(s, d -> {
+                    for (int i : idx) {
+                        res[i] = op.apply(d, i);  // verschiedene Indizes je Shard
+                    }
+                    return null;
+                }));
+            }
+        }
+        return CompletableFuture.allOf(parts.toArray(new CompletableFuture<?>[0])).thenApply(v -> {
+            List<V> list = new ArrayList<>(res.length);
+            for (Object o : res) {
+                @SuppressWarnings("unchecked")
+                V value = (V) o;
+                list.add(value);
+            }
+            return list;
+        });
+    }
+
+    private static <R> R await(CompletableFuture<R> f) {
+        try {
+            return f.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    public V insert(K key, V value) {
+        return await(insertAsync(key, value));
+    }
+
+    @Override
+    public V search(K key) {
+        return await(searchAsync(key));
+    }
+
+    @Override
+    public V remove(K key) {
+        return await(removeAsync(key));
+    }
+
+    @Override
+    public int size() {
+        int n = 0;
+        for (CompletableFuture<Integer> f : toAll(Dictionary::size)) {
+            n += await(f);
+        }
+        return n;
+    }
+
+    /**
+     * Returns an iterator over a copy of the entries, taken shard by shard
+     * (not an atomic snapshot across shards).
+     */
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        List<Entry<K, V>> all = new ArrayList<>();
+        for (CompletableFuture<List<Entry<K, V>>> f : toAll(d -> {
+            List<Entry<K, V>> l = new ArrayList<>();
+            for (Entry<K, V> e : d) {
+                l.add(new Entry<>(e.getKey(), e.getValue()));
+            }
+            return l;
+        })) {
+            all.addAll(await(f));
+        }
+        return all.iterator();
+    }
+
+    private <R> List<CompletableFuture<R>> toAll(Function<Dictionary<K, V>, R> op) {
+        List<CompletableFuture<R>> res = new ArrayList<>();
+        for (int s = 0; s < shards.length; s++) {
+            res.add(send(s, op));
+        }
+        return res;
+    }
+
+    public int shards() {
+        return shards.length;
+    }
+
+    /**
+     * Returns the number of messages waiting in the queue of a shard.
+     * @param shard shard index.
+     * @return current queue depth.
+     */
+    public int queueDepth(int shard) {
+        return shards[shard].queue.size();
+    }
+
+    /**
+     * Returns the largest queue depth a shard has seen when taking a message.
+     * @param shard shard index.
+     * @return peak queue depth.
+     */
+    public int peakQueueDepth(int shard) {
+        return shards[shard].peakDepth;
+    }
+
+    /**
+     * Returns a copy of the latency histogram of a shard (enqueue to completion, in ns).
+     * The copy is made by the shard thread itself.
+     * @param shard shard index.
+     * @return latency histogram.
+     */
+    public LatencyHistogram latency(int shard) {
+        Shard<K, V> s = shards[shard];
+        return await(send(shard, d -> {
+            LatencyHistogram copy = new LatencyHistogram();
+            copy.add(s.latency);
+            return copy;
+        }));
+    }
+
+    /**
+     * Processes all messages sent so far, stops the shard threads and closes
+     * shard dictionaries that are Closeable. Further calls have no effect.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (Shard<K, V> s : shards) {
+            s.queue.add(new Message<>(null));
+        }
+        IOException error = null;
+        for (Shard<K, V> s : shards) {
+            try {
+                s.thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (s.dict instanceof Closeable) {
+                try {
+                    ((Closeable) s.dict).close();
+                } catch (IOException e) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+}
@@ -1,16 +1,28 @@
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
-
+import java.util.List;
+
+/**
+ * Implementation of the Dictionary interface as sorted array with binary search.
+ * <p>
+ * The array is a TieredVector, so an insert or remove moves O(sqrt n) entries
+ * instead of O(n), while search stays O(log n) with O(1) access per probe.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
 public class SortedArrayDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
 
-    private Entry<K, V>[] data;
-    private int size;
-    private static final int DEF_CAPACITY = 16;
+    private TieredVector<Entry<K, V>> data;
 
-    @SuppressWarnings("unchecked")
     public SortedArrayDictionary() {
-        size = 0;
-        data = new Entry[DEF_CAPACITY];
+        data = new TieredVector<>();
     }
 
     @Override
@@ -18,23 +30,12 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
         int i = searchKey(key);
 
         if (i >= 0) {
-            V old = data[i].getValue();
-            data[i].setValue(value);
+            V old = data.get(i).getValue();
+            data.get(i).setValue(value);
             return old;
         }
 
-        if (data.length == size) {
-            data = Arrays.copyOf(data, 2*size);
-        }
-
-        int j = size-1;
-        while (j >= 0 && key.compareTo(data[j].getKey()) < 0) {
-            data[j+1] = data[j];
-            j--;
-        }
-
-        data[j+1] = new Entry<>(key, value);
-        size++;
+        data.add(-i - 1, new Entry<>(key, value));
         return null;
     }
 
@@ -42,43 +43,155 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
     public V search(K key) {
         int i = searchKey(key);
         if (i >= 0) {
-            return data[i].getValue();
+            return data.get(i).getValue();
         } else {
             return null;
         }
     }
 
+    /* Liefert den Index von key oder -(Einfügeposition)-1 */
     private int searchKey(K key) {
         int li = 0;
-        int re = size-1;
+        int re = data.size()-1;
 
         while (re >= li) {
             int m = (li+re)/2;
-            if (key.compareTo(data[m].getKey()) < 0) re = m-1;
-            else if (key.compareTo(data[m].getKey()) > 0) li = m+1;
+            int c = key.compareTo(data.get(m).getKey());
+            if (c < 0) re = m-1;
+            else if (c > 0) li = m+1;
             else return m;
         }
-        return -1;
+        return -li - 1;
+    }
+
+    /**
+     * Returns the entries with from &lt;= key &lt; to in ascending key order.
+     * The start is found by binary search, so a query runs in O(log n + k) for k entries in range.
+     * @param from lower bound (inclusive), null = unbounded.
+     * @param to upper bound (exclusive), null = unbounded.
+     * @return list of the entries in range.
+     */
+    public List<Entry<K, V>> range(K from, K to) {
+        List<Entry<K, V>> res = new ArrayList<>();
+        int i = 0;
+        if (from != null) {
+            i = searchKey(from);
+            if (i < 0) {
+                i = -i - 1;
+            }
+        }
+        for (; i < data.size(); i++) {
+            Entry<K, V> e = data.get(i);
+            if (to != null && e.getKey().compareTo(to) >= 0) {
+                break;
+            }
+            res.add(e);
+        }
+        return res;
     }
 
     @Override
     public V remove(K key) {
         int i = searchKey(key);
-        if (i == -1) {
+        if (i < 0) {
             return null;
         }
 
-        V r = data[i].getValue();
-        if (size - 1 - i >= 0) {
-            System.arraycopy(data, i + 1, data, i, size - 1 - i);
+        return data.remove(i).getValue();
+    }
+
+    /**
+     * Exports the entries of dict to an immutable sorted table file, which can be opened with
+     * SortedTable. Only String dictionaries can be exported, because the table orders the keys
+     * by their UTF-8 bytes.
+     * @param dict dictionary to be exported.
+     * @param file target file, will be overwritten.
+     * @param bloomFilter true, if the file is to contain a Bloom filter.
+     * @throws IOException if the file cannot be written.
+     */
+    public static void exportSortedTable(SortedArrayDictionary<String, String> dict, Path file, boolean bloomFilter)
+            throws IOException {
+        SortedTable.write(file, dict, bloomFilter);
+    }
+
+    /**
+     * Writes a binary snapshot of this dictionary (see DictionarySnapshot).
+     * @param file target file, will be overwritten.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @throws IOException if the file cannot be written.
+     */
+    public void snapshot(Path file, DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        try (OutputStream out = Files.newOutputStream(file)) {
+            snapshot(out, kc, vc);
+        }
+    }
+
+    /**
+     * Writes a binary snapshot of this dictionary to out (see DictionarySnapshot).
+     * @param out target stream, is flushed but not closed.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @throws IOException if the stream cannot be written.
+     */
+    public void snapshot(OutputStream out, DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        DictionarySnapshot.write(out, this, kc, vc, DictionarySnapshot.SORTED);
+    }
+
+    /**
+     * Restores a dictionary from a snapshot file.
+     * @param file snapshot file.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @return restored dictionary.
+     * @throws IOException if the file cannot be read or is no valid snapshot.
+     */
+    public static <K extends Comparable<? super K>, V> SortedArrayDictionary<K, V> restore(Path file,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        try (InputStream in = Files.newInputStream(file)) {
+            return restore(in, kc, vc);
+        }
+    }
+
+    /**
+     * Restores a dictionary from a snapshot stream in one pass:
+     * the entries are read into an array of the right size, unsorted snapshots are sorted once,
+     * then the tiered vector is filled block by block.
+     * @param in snapshot stream, is not closed.
+     * @param kc codec for the keys.
+     * @param vc codec for the values.
+     * @return restored dictionary.
+     * @throws IOException if the stream cannot be read or is no valid snapshot.
+     */
+    public static <K extends Comparable<? super K>, V> SortedArrayDictionary<K, V> restore(InputStream in,
+            DictionarySnapshot.Codec<K> kc, DictionarySnapshot.Codec<V> vc) throws IOException {
+        DictionarySnapshot.Reader<K, V> rd = new DictionarySnapshot.Reader<>(in, kc, vc);
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        Entry<K, V>[] entries = new Entry[rd.size];
+        for (int i = 0; i < rd.size; i++) {
+            entries[i] = rd.entry();
         }
-        data[--size] = null;
-        return r;
+        if (!rd.sorted) {
+            Arrays.sort(entries, (a, b) -> a.getKey().compareTo(b.getKey()));
+        }
+        for (int i = 1; i < rd.size; i++) {
+            if (entries[i - 1].getKey().compareTo(entries[i].getKey()) >= 0) {
+                throw new IOException("duplicate or unordered key in snapshot: " + entries[i].getKey());
+            }
+        }
+        return ofSorted(entries, rd.size);
+    }
+
+    /* Übernimmt entries[0..n-1], die aufsteigend sortiert sein müssen, ohne einzelnes Einfügen */
+    static <K extends Comparable<? super K>, V> SortedArrayDictionary<K, V> ofSorted(Entry<K, V>[] entries, int n) {
+        SortedArrayDictionary<K, V> dict = new SortedArrayDictionary<>();
+        dict.data = new TieredVector<>(entries, n);
+        return dict;
     }
 
     @Override
     public int size() {
-        return size;
+        return data.size();
     }
 
     @Override
@@ -89,12 +202,12 @@ public class SortedArrayDictionary<K extends Comparable<? super K>, V> implement
 
             @Override
             public boolean hasNext() {
-                return current < size;
+                return current < data.size();
             }
 
             @Override
             public Entry<K, V> next() {
-                return data[current++];
+                return data.get(current++);
             }
         };
     }
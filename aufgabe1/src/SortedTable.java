@@ -0,0 +1,513 @@
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Immutable sorted table file (SSTable) with String keys and values, read via memory mapping.
+ * <p>
+ * File layout:
+ * <pre>
+ *   data block*   entries: shared key length, unshared key length, value length + 1 (0 = tombstone)
+ *                 as varints, then the key suffix and the value bytes (UTF-8).
+ *                 The first entry of each block stores its full key.
+ *   index         number of blocks, then per block: first key, offset, length.
+ *   bloom filter  optional: number of bits, number of hashes, bit words.
+ *   footer        index offset, bloom offset (-1 = none), number of entries,
+ *                 max block length, magic number (8 bytes each).
+ * </pre>
+ * Keys are ordered by their unsigned UTF-8 bytes, which is the same as the order of
+ * String.compareTo for keys without surrogate characters.
+ * <p>
+ * The sparse block index is kept on the heap, the data blocks stay in the page cache.
+ * A search first asks the Bloom filter, then finds the block by binary search on the index
+ * and decodes only that block.
+ */
+public class SortedTable implements Dictionary<String, String>, Closeable {
+
+    static final int BLOCK_SIZE = 4096;
+    private static final long MAGIC = 0x414c44415353544cL;  // "ALDASSTL"
+    private static final int FOOTER_SIZE = 5 * 8;
+    private static final int BLOOM_BITS_PER_KEY = 10;
+    private static final int BLOOM_HASHES = 7;
+    private static final long SEGMENT_SIZE = 1L << 30;  // Dateien > 2 GB werden in Segmenten gemappt
+
+    private final FileChannel channel;
+    private final MappedByteBuffer[] segments;
+    private final int maxBlockLength;
+    private final byte[][] firstKeys;
+    private final long[] blockOffsets;
+    private final int[] blockLengths;
+    private final long[] bloom;  // null, falls kein Bloom-Filter vorhanden ist
+    private final int bloomHashes;
+    private final long entries;
+    private volatile long live = -1;  // Einträge ohne Tombstones, wird beim ersten size() gezählt
+
+    /**
+     * Opens a sorted table file.
+     * @param file file written by {@link #write}.
+     * @throws IOException if the file cannot be read or is no sorted table.
+     */
+    public SortedTable(Path file) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < FOOTER_SIZE) {
+                throw new IOException(file + " is not a sorted table");
+            }
+            ByteBuffer footer = channel.map(FileChannel.MapMode.READ_ONLY, fileSize - FOOTER_SIZE, FOOTER_SIZE);
+            long indexOffset = footer.getLong();
+            long bloomOffset = footer.getLong();
+            entries = footer.getLong();
+            maxBlockLength = (int) footer.getLong();
+            if (footer.getLong() != MAGIC) {
+                throw new IOException(file + " is not a sorted table");
+            }
+
+            // Segmente überlappen um die maximale Blocklänge, damit jeder Block in einem Segment liegt
+            int n = (int) Math.max(1, (indexOffset + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            segments = new MappedByteBuffer[n];
+            for (int i = 0; i < n; i++) {
+                long start = i * SEGMENT_SIZE;
+                long end = Math.min(fileSize, start + SEGMENT_SIZE + maxBlockLength);
+                segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+            }
+
+            long indexEnd = bloomOffset >= 0 ? bloomOffset : fileSize - FOOTER_SIZE;
+            ByteBuffer index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset, indexEnd - indexOffset);
+            int blocks = index.getInt();
+            firstKeys = new byte[blocks][];
+            blockOffsets = new long[blocks];
+            blockLengths = new int[blocks];
+            for (int b = 0; b < blocks; b++) {
+                firstKeys[b] = new byte[index.getInt()];
+                index.get(firstKeys[b]);
+                blockOffsets[b] = index.getLong();
+                blockLengths[b] = index.getInt();
+            }
+
+            if (bloomOffset >= 0) {
+                ByteBuffer bb = channel.map(FileChannel.MapMode.READ_ONLY, bloomOffset, fileSize - FOOTER_SIZE - bloomOffset);
+                bloom = new long[bb.getInt() / 64];
+                bloomHashes = bb.getInt();
+                bb.asLongBuffer().get(bloom);
+            } else {
+                bloom = null;
+                bloomHashes = 0;
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Writes the entries of dict to file. The entries must be returned in ascending key order
+     * (as by SortedArrayDictionary or BinaryTreeDictionary); keys and values are stored
+     * in UTF-8, a null value is stored as tombstone. Only String keys are accepted, because
+     * the table orders keys by their bytes, which matches compareTo only for Strings.
+     * @param file target file, will be overwritten.
+     * @param dict entries to be written.
+     * @param bloomFilter true, if a Bloom filter is to be written.
+     * @throws IOException if the file cannot be written.
+     * @throws IllegalArgumentException if the keys are not in strictly ascending order.
+     */
+    public static void write(Path file, Dictionary<String, String> dict, boolean bloomFilter) throws IOException {
+        try (OutputStream os = Files.newOutputStream(file)) {
+            write(os, dict, dict.size(), bloomFilter);
+        }
+    }
+
+    static void write(OutputStream target, Iterable<Dictionary.Entry<String, String>> entries, int expected,
+            boolean bloomFilter) throws IOException {
+        CountingOutputStream counter = new CountingOutputStream(new BufferedOutputStream(target, 1 << 16));
+        DataOutputStream out = new DataOutputStream(counter);
+        ByteArrayOutputStream block = new ByteArrayOutputStream(BLOCK_SIZE * 2);
+        ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+        DataOutputStream index = new DataOutputStream(indexBytes);
+        long[] bloom = bloomFilter ? new long[(int) Math.max(1, (expected * (long) BLOOM_BITS_PER_KEY + 63) / 64)] : null;
+
+        int blocks = 0;
+        long count = 0;
+        int maxBlock = 0;
+        byte[] prev = null;
+        byte[] first = null;
+        for (Dictionary.Entry<String, String> e : entries) {
+            byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+            if (prev != null && Arrays.compareUnsigned(prev, key) >= 0) {
+                throw new IllegalArgumentException("keys not in ascending order: " + e.getKey());
+            }
+            byte[] value = e.getValue() == null ? null : e.getValue().getBytes(StandardCharsets.UTF_8);
+            int shared = 0;
+            if (first == null) {
+                first = key;  // erster Schlüssel im Block wird vollständig gespeichert
+            } else {
+                int max = Math.min(prev.length, key.length);
+                while (shared < max && prev[shared] == key[shared]) {
+                    shared++;
+                }
+            }
+            writeVarInt(block, shared);
+            writeVarInt(block, key.length - shared);
+            writeVarInt(block, value == null ? 0 : value.length + 1);
+            block.write(key, shared, key.length - shared);
+            if (value != null) {
+                block.write(value);
+            }
+            if (bloom != null) {
+                addToBloom(bloom, key);
+            }
+            prev = key;
+            count++;
+            if (block.size() >= BLOCK_SIZE) {
+                maxBlock = Math.max(maxBlock, block.size());
+                writeBlock(out, counter, block, index, first);
+                blocks++;
+                first = null;
+            }
+        }
+        if (block.size() > 0) {
+            maxBlock = Math.max(maxBlock, block.size());
+            writeBlock(out, counter, block, index, first);
+            blocks++;
+        }
+
+        long indexOffset = counter.count;
+        out.writeInt(blocks);
+        index.flush();
+        indexBytes.writeTo(out);
+        long bloomOffset = -1;
+        if (bloom != null) {
+            bloomOffset = counter.count;
+            out.writeInt(bloom.length * 64);
+            out.writeInt(BLOOM_HASHES);
+            for (long w : bloom) {
+                out.writeLong(w);
+            }
+        }
+        out.writeLong(indexOffset);
+        out.writeLong(bloomOffset);
+        out.writeLong(count);
+        out.writeLong(maxBlock);
+        out.writeLong(MAGIC);
+        out.flush();
+    }
+
+    private static void writeBlock(DataOutputStream out, CountingOutputStream counter, ByteArrayOutputStream block,
+            DataOutputStream index, byte[] first) throws IOException {
+        index.writeInt(first.length);
+        index.write(first);
+        index.writeLong(counter.count);
+        index.writeInt(block.size());
+        block.writeTo(out);
+        block.reset();
+    }
+
+    private static void writeVarInt(OutputStream out, int v) throws IOException {
+        while ((v & ~0x7F) != 0) {
+            out.write((v & 0x7F) | 0x80);
+            v >>>= 7;
+        }
+        out.write(v);
+    }
+
+    private static int readVarInt(ByteBuffer in) {
+        int v = 0;
+        for (int shift = 0; ; shift += 7) {
+            byte b = in.get();
+            v |= (b & 0x7F) << shift;
+            if (b >= 0) {
+                return v;
+            }
+        }
+    }
+
+    // ---------------- Bloom-Filter ----------------
+
+    private static long hash64(byte[] key) {
+        long h = 0xcbf29ce484222325L;  // FNV-1a mit abschließender Durchmischung
+        for (byte b : key) {
+            h ^= b;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        return h;
+    }
+
+    private static void addToBloom(long[] bits, byte[] key) {
+        long h = hash64(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        long n = bits.length * 64L;
+        for (int i = 0; i < BLOOM_HASHES; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % n;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+    }
+
+    private boolean mightContain(byte[] key) {
+        if (bloom == null) {
+            return true;
+        }
+        long h = hash64(key);
+        int h1 = (int) h;
+        int h2 = (int) (h >>> 32);
+        long n = bloom.length * 64L;
+        for (int i = 0; i < bloomHashes; i++) {
+            long bit = Integer.toUnsignedLong(h1 + i * h2) % n;
+            if ((bloom[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ---------------- Lesen ----------------
+
+    /** Liefert den Block, dessen erster Schlüssel &lt;= key ist, oder -1. */
+    private int findBlock(byte[] key) {
+        int li = 0;
+        int re = firstKeys.length - 1;
+        int res = -1;
+        while (re >= li) {
+            int m = (li + re) >>> 1;
+            if (Arrays.compareUnsigned(firstKeys[m], key) <= 0) {
+                res = m;
+                li = m + 1;
+            } else {
+                re = m - 1;
+            }
+        }
+        return res;
+    }
+
+    private ByteBuffer block(int b) {
+        long offset = blockOffsets[b];
+        ByteBuffer seg = segments[(int) (offset / SEGMENT_SIZE)].duplicate();
+        int pos = (int) (offset % SEGMENT_SIZE);
+        seg.limit(pos + blockLengths[b]).position(pos);
+        return seg;
+    }
+
+    /** Dekodiert einen Block nacheinander; key enthält jeweils den vollständigen Schlüssel. */
+    private final class BlockCursor {
+        private final ByteBuffer buf;
+        byte[] key = new byte[64];
+        int keyLength = 0;
+        int valueLength;  // -1 = Grabstein
+        int valueOffset;
+
+        BlockCursor(int b) {
+            buf = block(b);
+        }
+
+        boolean next() {
+            if (!buf.hasRemaining()) {
+                return false;
+            }
+            int shared = readVarInt(buf);
+            int unshared = readVarInt(buf);
+            valueLength = readVarInt(buf) - 1;
+            if (shared + unshared > key.length) {
+                key = Arrays.copyOf(key, Math.max(2 * key.length, shared + unshared));
+            }
+            buf.get(key, shared, unshared);
+            keyLength = shared + unshared;
+            valueOffset = buf.position();
+            if (valueLength > 0) {
+                buf.position(valueOffset + valueLength);
+            }
+            return true;
+        }
+
+        int compareTo(byte[] other) {
+            return Arrays.compareUnsigned(key, 0, keyLength, other, 0, other.length);
+        }
+
+        String key() {
+            return new String(key, 0, keyLength, StandardCharsets.UTF_8);
+        }
+
+        String value() {
+            if (valueLength < 0) {
+                return null;
+            }
+            byte[] v = new byte[valueLength];
+            buf.get(valueOffset, v);
+            return new String(v, StandardCharsets.UTF_8);
+        }
+    }
+
+    /**
+     * Looks up key and reports whether it was found as value or as tombstone.
+     * @param key search key.
+     * @return null if key is not contained, otherwise an entry whose value is null for a tombstone.
+     */
+    Entry<String, String> lookup(String key) {
+        byte[] k = key.getBytes(StandardCharsets.UTF_8);
+        if (!mightContain(k)) {
+            return null;
+        }
+        int b = findBlock(k);
+        if (b < 0) {
+            return null;
+        }
+        BlockCursor c = new BlockCursor(b);
+        while (c.next()) {
+            int cmp = c.compareTo(k);
+            if (cmp == 0) {
+                return new Entry<>(key, c.value());
+            } else if (cmp > 0) {
+                break;
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public String search(String key) {
+        Entry<String, String> e = lookup(key);
+        return e == null ? null : e.getValue();
+    }
+
+    /**
+     * Returns the entries with from &lt;= key &lt; to in ascending order.
+     * Tombstones are skipped.
+     * @param from lower bound (inclusive), null = unbounded.
+     * @param to upper bound (exclusive), null = unbounded.
+     * @return iterator over the entries in range.
+     */
+    public Iterator<Entry<String, String>> range(String from, String to) {
+        return scan(from, to, false);
+    }
+
+    Iterator<Entry<String, String>> scan(String from, String to, boolean withTombstones) {
+        byte[] lo = from == null ? null : from.getBytes(StandardCharsets.UTF_8);
+        byte[] hi = to == null ? null : to.getBytes(StandardCharsets.UTF_8);
+        int start = lo == null ? 0 : Math.max(0, findBlock(lo));
+        return new Iterator<>() {
+            private int b = start;
+            private BlockCursor c = firstKeys.length > 0 ? new BlockCursor(b) : null;
+            private Entry<String, String> next = advance();
+
+            private Entry<String, String> advance() {
+                while (c != null) {
+                    if (!c.next()) {
+                        c = ++b < firstKeys.length ? new BlockCursor(b) : null;
+                        continue;
+                    }
+                    if (lo != null && c.compareTo(lo) < 0) {
+                        continue;
+                    }
+                    if (hi != null && c.compareTo(hi) >= 0) {
+                        c = null;
+                        return null;
+                    }
+                    if (c.valueLength >= 0 || withTombstones) {
+                        return new Entry<>(c.key(), c.value());
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Entry<String, String> next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Entry<String, String> e = next;
+                next = advance();
+                return e;
+            }
+        };
+    }
+
+    @Override
+    public Iterator<Entry<String, String>> iterator() {
+        return range(null, null);
+    }
+
+    /**
+     * Returns the number of entries without tombstones, at most Integer.MAX_VALUE,
+     * i.e. the number of entries the iterator returns. The footer only stores the number
+     * including tombstones, so the first call decodes all blocks once.
+     * @return the number of entries in this table.
+     */
+    @Override
+    public int size() {
+        long n = live;
+        if (n < 0) {
+            n = 0;
+            for (Iterator<Entry<String, String>> it = iterator(); it.hasNext(); it.next()) {
+                n++;
+            }
+            live = n;
+        }
+        return (int) Math.min(n, Integer.MAX_VALUE);
+    }
+
+    /* Anzahl der Einträge einschließlich Tombstones, aus dem Footer */
+    long entryCount() {
+        return entries;
+    }
+
+    @Override
+    public String insert(String key, String value) {
+        throw new UnsupportedOperationException("sorted table is immutable");
+    }
+
+    @Override
+    public String remove(String key) {
+        throw new UnsupportedOperationException("sorted table is immutable");
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private static class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+        long count = 0;
+
+        CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        @Override
+        public void flush() throws IOException {
+            out.flush();
+        }
+    }
+}
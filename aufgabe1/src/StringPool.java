@@ -0,0 +1,103 @@
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Pool for deduplicating strings during bulk loads, e.g. the values of a word list
+ * where the same English word is the translation of many German words.
+ * <p>
+ * intern returns one canonical instance per distinct string, so equal strings that
+ * are inserted into one or several dictionaries share their memory. The pool only
+ * holds weak references: a string that is no longer used by any dictionary is
+ * removed by the garbage collector. The pool is divided into stripes with their own
+ * lock, so several loader threads can use it concurrently.
+ * <p>
+ * The pool counts the duplicates it has replaced and the bytes that the replaced
+ * copies would have occupied (estimate for a 64-bit JVM with compressed references
+ * and compact strings).
+ */
+public final class StringPool {
+
+    /** Pool shared by all dictionaries of the TUI. */
+    public static final StringPool SHARED = new StringPool();
+
+    private static final int STRIPES = 16;
+
+    private final Map<String, WeakReference<String>>[] stripes;
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public StringPool() {
+        stripes = new Map[STRIPES];
+        for (int i = 0; i < STRIPES; i++) {
+            stripes[i] = new WeakHashMap<>();
+        }
+    }
+
+    /**
+     * Returns the canonical instance of s.
+     * @param s string, may be null.
+     * @return string equal to s from the pool; s itself if it was not contained.
+     */
+    public String intern(String s) {
+        if (s == null) {
+            return null;
+        }
+        lookups.increment();
+        int h = s.hashCode();
+        Map<String, WeakReference<String>> m = stripes[(h ^ (h >>> 16)) & (STRIPES - 1)];
+        synchronized (m) {
+            WeakReference<String> ref = m.get(s);
+            String p = ref == null ? null : ref.get();
+            if (p != null) {
+                if (p != s) {
+                    duplicates.increment();
+                    bytesSaved.add(sizeOf(s));
+                }
+                return p;
+            }
+            m.put(s, new WeakReference<>(s));
+            return s;
+        }
+    }
+
+    /** Geschätzte Größe eines Strings: Objekt (24 Byte) und byte[] (16 Byte Kopf, 1 oder 2 Byte je Zeichen). */
+    static long sizeOf(String s) {
+        int bytesPerChar = 1;
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) > 0xFF) {
+                bytesPerChar = 2;
+                break;
+            }
+        }
+        return 24 + ((16L + (long) s.length() * bytesPerChar + 7) & ~7L);
+    }
+
+    /** Returns the number of strings in the pool (including not yet collected ones). */
+    public int size() {
+        int n = 0;
+        for (Map<String, WeakReference<String>> m : stripes) {
+            synchronized (m) {
+                n += m.size();
+            }
+        }
+        return n;
+    }
+
+    public long lookups() {
+        return lookups.sum();
+    }
+
+    /** Returns how many copies have been replaced by a pooled instance. */
+    public long duplicates() {
+        return duplicates.sum();
+    }
+
+    /** Returns the estimated number of bytes of the replaced copies. */
+    public long bytesSaved() {
+        return bytesSaved.sum();
+    }
+}
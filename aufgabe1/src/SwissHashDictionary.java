@@ -0,0 +1,254 @@
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * Implementation of the Dictionary interface as open addressing hash table
+ * in the style of a Swiss table.
+ * <p>
+ * Besides the key and value arrays the table keeps one control byte per slot:
+ * EMPTY, DELETED or, for a used slot, a 7-bit fingerprint of the key's hash.
+ * Slots are probed in groups of 16. The control bytes of a group are packed into
+ * two longs and compared against the fingerprint with SWAR word operations,
+ * so equals is only called for slots whose fingerprint matches
+ * (on average about one call per successful search).
+ * <p>
+ * Groups are probed with a triangular sequence; a search stops at the first
+ * group that contains an EMPTY slot. The table grows when used plus deleted
+ * slots exceed 7/8 of the capacity.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class SwissHashDictionary<K extends Comparable<? super K>, V> implements Dictionary<K, V> {
+
+    private static final int GROUP = 16;  // Slots pro Gruppe
+    private static final int DEF_GROUPS = 2;
+
+    private static final int EMPTY = 0x80;
+    private static final int DELETED = 0xFE;
+
+    private static final long LSB = 0x0101010101010101L;
+    private static final long MSB = 0x8080808080808080L;
+
+    private long[] ctrl;  // 8 Kontrollbytes pro long
+    private Object[] keys;
+    private Object[] values;
+    private int groupMask;
+    private int size = 0;
+    private int deleted = 0;
+
+    public SwissHashDictionary() {
+        allocate(DEF_GROUPS);
+    }
+
+    /**
+     * Creates an empty dictionary that holds expected entries without rehashing.
+     * @param expected expected number of entries.
+     */
+    public SwissHashDictionary(int expected) {
+        int groups = DEF_GROUPS;
+        while ((long) groups * GROUP * 7 < expected * 8L) {
+            groups *= 2;
+        }
+        allocate(groups);
+    }
+
+    private void allocate(int groups) {
+        int capacity = groups * GROUP;
+        ctrl = new long[capacity / 8];
+        Arrays.fill(ctrl, EMPTY * LSB);
+        keys = new Object[capacity];
+        values = new Object[capacity];
+        groupMask = groups - 1;
+        deleted = 0;
+    }
+
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 15);
+    }
+
+    private static int h2(int h) {  // 7-Bit-Fingerabdruck
+        return h & 0x7F;
+    }
+
+    private static int h1(int h) {  // Startgruppe
+        return h >>> 7;
+    }
+
+    /** Bytes von w, die gleich b sind (höchstes Bit je Byte gesetzt, vereinzelt falsch positiv). */
+    private static long match(long w, int b) {
+        long x = w ^ (b * LSB);
+        return (x - LSB) & ~x & MSB;
+    }
+
+    private static long matchEmpty(long w) {
+        return match(w, EMPTY);
+    }
+
+    private static long matchEmptyOrDeleted(long w) {
+        return w & MSB;
+    }
+
+    private int ctrlAt(int slot) {
+        return (int) (ctrl[slot >>> 3] >>> ((slot & 7) * 8)) & 0xFF;
+    }
+
+    private void setCtrl(int slot, int b) {
+        int shift = (slot & 7) * 8;
+        long w = ctrl[slot >>> 3];
+        ctrl[slot >>> 3] = (w & ~(0xFFL << shift)) | ((long) b << shift);
+    }
+
+    /** Liefert den Slot von key oder -1. */
+    private int find(Object key, int h) {
+        int fp = h2(h);
+        int g = h1(h) & groupMask;
+        for (int step = 1; ; step++) {
+            int w = g * (GROUP / 8);
+            for (int half = 0; half < GROUP / 8; half++) {
+                long word = ctrl[w + half];
+                long m = match(word, fp);
+                while (m != 0) {
+                    int slot = (w + half) * 8 + (Long.numberOfTrailingZeros(m) >>> 3);
+                    if (keys[slot].equals(key)) {
+                        return slot;
+                    }
+                    m &= m - 1;
+                }
+            }
+            if (matchEmpty(ctrl[w]) != 0 || matchEmpty(ctrl[w + 1]) != 0) {
+                return -1;
+            }
+            if (step > groupMask) {
+                return -1;  // alle Gruppen besucht
+            }
+            g = (g + step) & groupMask;  // Dreieckszahlen besuchen alle Gruppen
+        }
+    }
+
+    /** Liefert den ersten freien oder gelöschten Slot in der Sondierungsfolge. */
+    private int findFree(int h) {
+        int g = h1(h) & groupMask;
+        for (int step = 1; ; step++) {
+            int w = g * (GROUP / 8);
+            for (int half = 0; half < GROUP / 8; half++) {
+                long m = matchEmptyOrDeleted(ctrl[w + half]);
+                if (m != 0) {
+                    return (w + half) * 8 + (Long.numberOfTrailingZeros(m) >>> 3);
+                }
+            }
+            g = (g + step) & groupMask;
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V search(K key) {
+        int slot = find(key, hash(key));
+        return slot >= 0 ? (V) values[slot] : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V insert(K key, V value) {
+        int h = hash(key);
+        int slot = find(key, h);
+        if (slot >= 0) {
+            V old = (V) values[slot];
+            values[slot] = value;
+            return old;
+        }
+        if ((size + deleted + 1) * 8L > keys.length * 7L) {
+            // viele Grabsteine: gleich groß neu aufbauen, sonst verdoppeln
+            resize(deleted > size / 2 ? groupMask + 1 : (groupMask + 1) * 2);
+        }
+        put(key, value, h);
+        size++;
+        return null;
+    }
+
+    private void put(Object key, Object value, int h) {
+        int slot = findFree(h);
+        if (ctrlAt(slot) == DELETED) {
+            deleted--;
+        }
+        setCtrl(slot, h2(h));
+        keys[slot] = key;
+        values[slot] = value;
+    }
+
+    private void resize(int groups) {
+        long[] oldCtrl = ctrl;
+        Object[] oldKeys = keys;
+        Object[] oldValues = values;
+        allocate(groups);
+        for (int slot = 0; slot < oldKeys.length; slot++) {
+            int c = (int) (oldCtrl[slot >>> 3] >>> ((slot & 7) * 8)) & 0xFF;
+            if ((c & EMPTY) == 0) {  // belegter Slot
+                put(oldKeys[slot], oldValues[slot], hash(oldKeys[slot]));
+            }
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public V remove(K key) {
+        int slot = find(key, hash(key));
+        if (slot < 0) {
+            return null;
+        }
+        V old = (V) values[slot];
+        keys[slot] = null;
+        values[slot] = null;
+        // Gruppe ohne EMPTY darf keinen EMPTY-Slot bekommen, sonst bricht die Suche zu früh ab
+        int w = (slot / GROUP) * (GROUP / 8);
+        boolean groupHasEmpty = matchEmpty(ctrl[w]) != 0 || matchEmpty(ctrl[w + 1]) != 0;
+        if (groupHasEmpty) {
+            setCtrl(slot, EMPTY);
+        } else {
+            setCtrl(slot, DELETED);
+            deleted++;
+        }
+        size--;
+        return old;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return new Iterator<>() {
+
+            private int current = advance(-1);
+
+            private int advance(int slot) {
+                do {
+                    slot++;
+                } while (slot < keys.length && (ctrlAt(slot) & EMPTY) != 0);
+                return slot;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return current < keys.length;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public Entry<K, V> next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Entry<K, V> e = new Entry<>((K) keys[current], (V) values[current]);
+                current = advance(current);
+                return e;
+            }
+        };
+    }
+}
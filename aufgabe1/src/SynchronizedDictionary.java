@@ -0,0 +1,43 @@
+import java.util.Iterator;
+
+/**
+ * Thread-safe wrapper for any Dictionary: every operation is synchronized on the wrapper.
+ * <p>
+ * The iterator is not synchronized; it must not be used concurrently with mutations.
+ *
+ * @param <K> Key.
+ * @param <V> Value.
+ */
+public class SynchronizedDictionary<K, V> implements Dictionary<K, V> {
+
+    private final Dictionary<K, V> dict;
+
+    public SynchronizedDictionary(Dictionary<K, V> dict) {
+        this.dict = dict;
+    }
+
+    @Override
+    public synchronized V insert(K key, V value) {
+        return dict.insert(key, value);
+    }
+
+    @Override
+    public synchronized V search(K key) {
+        return dict.search(key);
+    }
+
+    @Override
+    public synchronized V remove(K key) {
+        return dict.remove(key);
+    }
+
+    @Override
+    public synchronized int size() {
+        return dict.size();
+    }
+
+    @Override
+    public Iterator<Entry<K, V>> iterator() {
+        return dict.iterator();
+    }
+}
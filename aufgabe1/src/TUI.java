@@ -1,8 +1,13 @@
 import java.io.BufferedReader;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileNotFoundException;
 import java.io.FileReader;
 import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Scanner;
 
 import javax.swing.JFileChooser;
@@ -10,12 +15,20 @@ import javax.swing.JFileChooser;
 public class TUI {
 
     private static Dictionary<String, String> dic;
+    private static BKTree fuzzy;  // Index für Korrekturvorschläge, wird bei Änderungen verworfen
+    private static final int MAX_DISTANCE = 2;
+    private static final int MAX_SUGGESTIONS = 5;
+    private static boolean intern = false;  // Schlüssel und Werte beim Einlesen über StringPool.SHARED teilen
     private static Scanner scanner = new Scanner(System.in);
 
     private TUI() {}
 
     public static void main(String[] args) throws Exception {
 
+        if (args.length > 0 && args[0].equals("batch")) {
+            BatchMode.run(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
 
         System.out.println("Welcome to Dictionary TUI");
 
@@ -29,6 +42,9 @@ public class TUI {
     private static void commands(String command) throws Exception {
 
         String args[] = command.split(" ");
+        if (!args[0].equals("s") && !args[0].equals("rs") && !args[0].equals("p") && !args[0].equals("save")
+                && !args[0].equals("export"))
+            fuzzy = null;
 
         switch (args[0]) {
             case "create":
@@ -49,6 +65,12 @@ public class TUI {
                 else
                     search(args);
                 break;
+            case "rs":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    searchInverse(args);
+                break;
             case "i":
                 if (dic == null)
                     System.out.println("Use 'create' to create your first Dictionary!");
@@ -61,28 +83,77 @@ public class TUI {
                 else
                     remove(args);
                 break;
+            case "w":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    log(args);
+                break;
+            case "save":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    save(args);
+                break;
+            case "load":
+                load(args);
+                break;
+            case "export":
+                if (dic == null)
+                    System.out.println("Use 'create' to create your first Dictionary!");
+                else
+                    export(args);
+                break;
+            case "connect":
+                connect(args);
+                break;
+            case "intern":
+                intern = args.length < 2 || args[1].equals("on");
+                System.out.println("Interning " + (intern ? "on" : "off"));
+                break;
             case "exit":
+                closeDictionary();
                 scanner.close();
                 System.exit(0);
         }
     }
 
-    private static void create(String[] args) {
-        System.out.println("Creating new Dictionary");
-        if (args[0].equals("HashDictionary")) {
-            dic = new HashDictionary(3);
-        }
-        else if (args[0].equals("BinaryTreeDictionary")) {
-            dic = new BinaryTreeDictionary<>();
-        }
-        else {
-            dic = new SortedArrayDictionary();
+    /* Schließt das aktuelle Wörterbuch, bevor es ersetzt wird (Log, Verbindung, Dateien) */
+    private static void closeDictionary() throws IOException {
+        if (dic instanceof Closeable)
+            ((Closeable) dic).close();
+    }
+
+    private static void create(String[] args) throws IOException {
+        String name = args.length > 1 ? args[1] : "SortedArrayDictionary";
+        try {
+            Dictionary<String, String> created = BatchMode.create(name);
+            closeDictionary();
+            dic = created;
+            System.out.println("Creating new " + name);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
         }
     }
 
-    private static void print() {
-        for (Dictionary.Entry<String, String> v : dic)
-            System.out.println(v.getKey() + ": " + v.getValue());
+    private static void print() throws IOException {
+        System.out.flush();
+        DictionaryExport.writeText(dic, Channels.newChannel(System.out), ": ");
+        System.out.flush();
+    }
+
+    /* export <file> [binary] [sorted]: schreibt das Dictionary als Text- oder Binärdatei */
+    private static void export(String[] args) throws IOException {
+        List<String> options = Arrays.asList(args).subList(2, args.length);
+        boolean sorted = options.contains("sorted");
+        long start = System.nanoTime();
+        long bytes;
+        if (options.contains("binary"))
+            bytes = DictionaryExport.writeBinary(dic, Path.of(args[1]), DictionarySnapshot.STRING, DictionarySnapshot.STRING, sorted);
+        else
+            bytes = DictionaryExport.writeText(dic, Path.of(args[1]), sorted);
+        long stop = System.nanoTime();
+        System.out.println("Exported " + bytes + " bytes in " + ((stop - start) / 1000000) + "ms");
     }
 
     private static void read(String args[]) throws IOException {
@@ -97,7 +168,7 @@ public class TUI {
                 String line = rd.readLine();
                 while (line != null) {
                     String entry[] = line.split(" ");
-                    dic.insert(entry[0], entry[1]);
+                    insertEntry(entry);
                     line = rd.readLine();
                 }
                 stop = System.nanoTime();
@@ -111,7 +182,7 @@ public class TUI {
                 for (int i = 0; i < Integer.parseInt(args[1]); i++) {
                     String line = rd.readLine();
                     String entry[] = line.split(" ");
-                    dic.insert(entry[0], entry[1]);
+                    insertEntry(entry);
                 }
                 stop = System.nanoTime();
 
@@ -121,15 +192,64 @@ public class TUI {
         }
         long diff = stop - start;
         System.out.println("Read took " + (diff / 1000000) + "ms");
+        if (intern) {
+            StringPool pool = StringPool.SHARED;
+            System.out.printf("Interned: %d lookups, %d duplicates, %d KB saved, %d strings in pool\n",
+                    pool.lookups(), pool.duplicates(), pool.bytesSaved() / 1024, pool.size());
+        }
+    }
+
+    private static void insertEntry(String[] entry) {
+        if (intern)
+            dic.insert(StringPool.SHARED.intern(entry[0]), StringPool.SHARED.intern(entry[1]));
+        else
+            dic.insert(entry[0], entry[1]);
+    }
+
+    private static void save(String[] args) throws IOException {
+        Path file = Path.of(args[1]);
+        long start = System.nanoTime();
+        if (dic instanceof SortedArrayDictionary) {
+            ((SortedArrayDictionary<String, String>) dic).snapshot(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+        } else if (dic instanceof BinaryTreeDictionary) {
+            ((BinaryTreeDictionary<String, String>) dic).snapshot(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+        } else if (dic instanceof HashDictionary) {
+            ((HashDictionary<String, String>) dic).snapshot(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+        } else {
+            System.out.println("save is not supported for " + dic.getClass().getName());
+            return;
+        }
+        long stop = System.nanoTime();
+        System.out.println("Save took " + ((stop - start) / 1000000) + "ms");
+    }
+
+    /* Stellt einen Snapshot mit der Implementierung des aktuellen Dictionaries wieder her */
+    private static void load(String[] args) throws IOException {
+        Path file = Path.of(args[1]);
+        long start = System.nanoTime();
+        Dictionary<String, String> loaded;
+        if (dic instanceof BinaryTreeDictionary) {
+            loaded = BinaryTreeDictionary.restore(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+        } else if (dic instanceof HashDictionary) {
+            loaded = HashDictionary.restore(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+        } else {
+            loaded = SortedArrayDictionary.restore(file, DictionarySnapshot.STRING, DictionarySnapshot.STRING);
+        }
+        closeDictionary();
+        dic = loaded;
+        long stop = System.nanoTime();
+        System.out.println("Load took " + ((stop - start) / 1000000) + "ms");
     }
 
     private static void search(String[] args) {
 
         long start = 0;
         long stop = 0;
+        String value = null;
         try {
             start = System.nanoTime();
-            System.out.println(dic.search(args[1]));
+            value = dic.search(args[1]);
+            System.out.println(value);
             stop = System.nanoTime();
         } catch (NullPointerException e) {
             System.err.println("Wort wurde nicht gefunden!");
@@ -137,6 +257,35 @@ public class TUI {
 
         long diff = stop - start;
         System.out.println("Search took " + (diff / 1000) + "µs");
+        if (value == null)
+            suggest(args[1]);
+    }
+
+    /* Schlägt bei einem Fehlschlag die nächsten Schlüssel mit Editierabstand <= MAX_DISTANCE vor */
+    private static void suggest(String word) {
+        if (fuzzy == null) {
+            long start = System.nanoTime();
+            fuzzy = new BKTree(dic);
+            System.out.println("Fuzzy index built in " + ((System.nanoTime() - start) / 1000000) + "ms");
+        }
+        long start = System.nanoTime();
+        List<String> found = fuzzy.search(word, MAX_DISTANCE);
+        long stop = System.nanoTime();
+        if (!found.isEmpty())
+            System.out.println("Did you mean: " + String.join(", ", found.subList(0, Math.min(MAX_SUGGESTIONS, found.size()))));
+        System.out.println("Fuzzy search took " + ((stop - start) / 1000) + "µs");
+    }
+
+    /* Rückwärtssuche, z.B. Englisch -> Deutsch */
+    private static void searchInverse(String[] args) {
+        if (!(dic instanceof BidirectionalDictionary)) {
+            System.out.println("Use 'create BidirectionalDictionary' for reverse searches");
+            return;
+        }
+        long start = System.nanoTime();
+        System.out.println(((BidirectionalDictionary<String, String>) dic).searchInverse(args[1]));
+        long stop = System.nanoTime();
+        System.out.println("Search took " + ((stop - start) / 1000) + "µs");
     }
 
     private static void insert(String[] args) {
@@ -144,6 +293,24 @@ public class TUI {
         dic.insert(args[1], args[2]);
     }
 
+    /* Verbindet mit einem DictionaryServer, statt das Wörterbuch selbst zu laden */
+    private static void connect(String[] args) throws IOException {
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : DictionaryServer.DEFAULT_PORT;
+        DictionaryClient client = new DictionaryClient(port);
+        closeDictionary();
+        dic = client;
+        System.out.printf("Connected to port %d (%d entries)\n", port, dic.size());
+    }
+
+    private static void log(String[] args) throws IOException {
+        if (dic instanceof LoggedDictionary) {
+            System.out.println("Mutations are already logged");
+            return;
+        }
+        dic = new LoggedDictionary(dic, Path.of(args[1]));
+        System.out.printf("Logging mutations to %s (%d entries after replay)\n", args[1], dic.size());
+    }
+
     private static void remove(String[] args) {
         System.out.printf("Removing %s from Dictionary\n", args[1]);
         dic.remove(args[1]);
@@ -0,0 +1,146 @@
+import java.util.Arrays;
+
+/**
+ * Indexed sequence with O(1) access and O(sqrt n) insert and remove at any position
+ * (tiered vector, Goodrich and Kloss).
+ * <p>
+ * The elements are stored in blocks of B = 2^shift slots. Every block is a ring buffer
+ * with its own start offset, and all blocks except the last one are full, so element i
+ * is at block i / B, slot (offset + i) mod B. Inserting at i shifts at most B elements
+ * inside block i / B and then moves one element from the end of each following block
+ * to the front of the next one, which is O(1) per block. B is kept near sqrt(n) by
+ * rebuilding with the doubled (halved) block size when there are more than 2B
+ * (fewer than B/8) blocks in use, so both steps are O(sqrt n).
+ *
+ * @param <E> element type.
+ */
+final class TieredVector<E> {
+
+    private static final int MIN_SHIFT = 4;
+
+    private Object[][] blocks;
+    private int[] offset;
+    private int shift;
+    private int mask;
+    private int size = 0;
+
+    TieredVector() {
+        init(MIN_SHIFT, 1);
+    }
+
+    /**
+     * Creates a vector with the elements a[0..n-1].
+     * @param a elements.
+     * @param n number of elements.
+     */
+    TieredVector(Object[] a, int n) {
+        int s = MIN_SHIFT;
+        while ((1L << (2 * s)) < n) {  // B >= sqrt(n)
+            s++;
+        }
+        init(s, Math.max(1, (n + (1 << s) - 1) >>> s));
+        for (int b = 0; b << shift < n; b++) {
+            System.arraycopy(a, b << shift, blocks[b], 0, Math.min(1 << shift, n - (b << shift)));
+        }
+        size = n;
+    }
+
+    private void init(int s, int nBlocks) {
+        shift = s;
+        mask = (1 << s) - 1;
+        blocks = new Object[nBlocks][];
+        offset = new int[nBlocks];
+        for (int b = 0; b < nBlocks; b++) {
+            blocks[b] = new Object[1 << s];
+        }
+    }
+
+    int size() {
+        return size;
+    }
+
+    @SuppressWarnings("unchecked")
+    E get(int i) {
+        int b = i >>> shift;
+        return (E) blocks[b][(offset[b] + i) & mask];
+    }
+
+    void set(int i, E e) {
+        int b = i >>> shift;
+        blocks[b][(offset[b] + i) & mask] = e;
+    }
+
+    /**
+     * Inserts e at position i; the elements from i on move one position up.
+     * @param i position, 0 &lt;= i &lt;= size.
+     * @param e element.
+     */
+    void add(int i, E e) {
+        if (size == blocks.length << shift) {
+            if (blocks.length >= 2 << shift) {
+                rebuild(shift + 1);
+            } else {
+                int n = blocks.length;
+                blocks = Arrays.copyOf(blocks, Math.min(2 * n, 2 << shift));
+                offset = Arrays.copyOf(offset, blocks.length);
+                for (int b = n; b < blocks.length; b++) {
+                    blocks[b] = new Object[1 << shift];
+                }
+            }
+        }
+        int bi = i >>> shift;
+        int last = size >>> shift;  // Block, in dem die neue letzte Position liegt
+        for (int b = last; b > bi; b--) {  // je Block das letzte Element nach vorn in den nächsten
+            offset[b] = (offset[b] - 1) & mask;
+            blocks[b][offset[b]] = blocks[b - 1][(offset[b - 1] + mask) & mask];
+        }
+        Object[] blk = blocks[bi];
+        int off = offset[bi];
+        int end = bi < last ? mask : size & mask;  // Position nach dem letzten verbliebenen Element
+        for (int j = end; j > (i & mask); j--) {
+            blk[(off + j) & mask] = blk[(off + j - 1) & mask];
+        }
+        blk[(off + i) & mask] = e;
+        size++;
+    }
+
+    /**
+     * Removes the element at position i; the elements after i move one position down.
+     * @param i position, 0 &lt;= i &lt; size.
+     * @return removed element.
+     */
+    E remove(int i) {
+        E old = get(i);
+        int bi = i >>> shift;
+        int last = (size - 1) >>> shift;
+        Object[] blk = blocks[bi];
+        int off = offset[bi];
+        int end = bi < last ? mask : (size - 1) & mask;
+        for (int j = i & mask; j < end; j++) {
+            blk[(off + j) & mask] = blk[(off + j + 1) & mask];
+        }
+        blk[(off + end) & mask] = null;
+        for (int b = bi + 1; b <= last; b++) {  // je Block das erste Element ans Ende des vorigen
+            blocks[b - 1][(offset[b - 1] + mask) & mask] = blocks[b][offset[b]];
+            blocks[b][offset[b]] = null;
+            offset[b] = (offset[b] + 1) & mask;
+        }
+        size--;
+        if (shift > MIN_SHIFT && size < (1 << (2 * shift - 3))) {  // weniger als B/8 volle Blöcke
+            rebuild(shift - 1);
+        }
+        return old;
+    }
+
+    private void rebuild(int s) {
+        Object[] a = new Object[size];
+        for (int i = 0; i < size; i++) {
+            a[i] = get(i);
+        }
+        int n = size;
+        init(s, Math.max(1, ((n + (1 << s) - 1) >>> s) + 1));
+        for (int b = 0; b << shift < n; b++) {
+            System.arraycopy(a, b << shift, blocks[b], 0, Math.min(1 << shift, n - (b << shift)));
+        }
+    }
+}
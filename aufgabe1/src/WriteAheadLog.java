@@ -0,0 +1,237 @@
+import java.io.BufferedInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of dictionary mutations with group commit.
+ * <p>
+ * Record layout: payload length (int), CRC32 of the payload (int), payload.
+ * The payload is the operation (INSERT or REMOVE), the key and for INSERT the value,
+ * each string as length (int) and UTF-8 bytes.
+ * <p>
+ * append only copies the record into a buffer. sync(lsn) makes it durable: the first
+ * waiting thread becomes leader, writes everything buffered so far with one write and
+ * one fsync, and thereby commits the records of all other waiting threads, too.
+ * <p>
+ * When opened, the log is replayed; a torn or corrupt tail (crash during a write)
+ * is cut off.
+ */
+public class WriteAheadLog implements Closeable {
+
+    static final byte INSERT = 1;
+    static final byte REMOVE = 2;
+    private static final int HEADER = 8;
+
+    /** Empfänger der Einträge beim Wiederherstellen. */
+    public interface Replay {
+        void insert(String key, String value);
+        void remove(String key);
+    }
+
+    private final FileChannel channel;
+    private ByteArrayOutputStream buffer = new ByteArrayOutputStream(1 << 16);
+    private long appended;  // logische Position hinter dem letzten angehängten Eintrag
+    private long durable;  // bis hierhin ist das Log auf der Platte
+    private boolean syncing = false;
+    private IOException failure;
+    private long syncs = 0;
+
+    /**
+     * Opens the log file, replays all valid records into replay and cuts off a corrupt tail.
+     * @param file log file, is created if it does not exist.
+     * @param replay receiver of the logged mutations.
+     * @throws IOException if the file cannot be read or written.
+     */
+    public WriteAheadLog(Path file, Replay replay) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            long valid = replay(replay);
+            channel.truncate(valid);
+            channel.position(valid);
+            appended = durable = valid;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private long replay(Replay replay) throws IOException {
+        long size = channel.size();
+        long valid = 0;
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel), 1 << 16));
+        CRC32 crc = new CRC32();
+        while (size - valid >= HEADER) {
+            int length = in.readInt();
+            int checksum = in.readInt();
+            if (length < 1 || length > size - valid - HEADER) {
+                break;  // abgeschnittener Eintrag
+            }
+            byte[] p = new byte[length];
+            in.readFully(p);
+            crc.reset();
+            crc.update(p);
+            if ((int) crc.getValue() != checksum) {
+                break;
+            }
+            ByteBuffer payload = ByteBuffer.wrap(p);
+            byte op = payload.get();
+            String key = readString(payload);
+            if (op == INSERT) {
+                replay.insert(key, readString(payload));
+            } else if (op == REMOVE) {
+                replay.remove(key);
+            } else {
+                break;
+            }
+            valid += HEADER + length;
+        }
+        return valid;
+    }
+
+    private static String readString(ByteBuffer in) {
+        byte[] b = new byte[in.getInt()];
+        in.get(b);
+        return new String(b, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Appends a record to the log buffer. The record is durable after sync with the returned position.
+     * @param op INSERT or REMOVE.
+     * @param key key.
+     * @param value value for INSERT, otherwise null.
+     * @return log position behind the record.
+     */
+    public long append(byte op, String key, String value) {
+        if ((op == INSERT) != (value != null)) {
+            throw new IllegalArgumentException("INSERT needs a value, REMOVE none");
+        }
+        ByteArrayOutputStream payload = new ByteArrayOutputStream(64);
+        try (DataOutputStream out = new DataOutputStream(payload)) {
+            out.writeByte(op);
+            writeString(out, key);
+            if (value != null) {
+                writeString(out, value);
+            }
+        } catch (IOException e) {
+            throw new AssertionError(e);  // ByteArrayOutputStream wirft nicht
+        }
+        byte[] p = payload.toByteArray();
+        CRC32 crc = new CRC32();
+        crc.update(p);
+        ByteBuffer header = ByteBuffer.allocate(HEADER).putInt(p.length).putInt((int) crc.getValue());
+        synchronized (this) {
+            buffer.write(header.array(), 0, HEADER);
+            buffer.write(p, 0, p.length);
+            appended += HEADER + p.length;
+            return appended;
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] b = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(b.length);
+        out.write(b);
+    }
+
+    /**
+     * Blocks until the log is durable up to lsn (group commit).
+     * @param lsn log position returned by append.
+     * @throws IOException if writing or fsync fails.
+     */
+    public void sync(long lsn) throws IOException {
+        ByteArrayOutputStream batch;
+        long target;
+        synchronized (this) {
+            while (durable < lsn && syncing && failure == null) {  // ein anderer Thread schreibt gerade
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException("interrupted while waiting for log sync", e);
+                }
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            if (durable >= lsn) {
+                return;
+            }
+            syncing = true;  // dieser Thread wird Anführer und schreibt alles Gepufferte
+            batch = buffer;
+            buffer = new ByteArrayOutputStream(1 << 16);
+            target = appended;
+        }
+        IOException error = null;
+        try {
+            ByteBuffer b = ByteBuffer.wrap(batch.toByteArray());
+            while (b.hasRemaining()) {
+                channel.write(b);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            error = e;
+        }
+        synchronized (this) {
+            syncing = false;
+            if (error != null) {
+                failure = error;
+            } else {
+                durable = target;
+                syncs++;
+            }
+            notifyAll();
+        }
+        if (error != null) {
+            throw error;
+        }
+    }
+
+    /**
+     * Discards all records, e.g. after the dictionary has been saved completely.
+     * @throws IOException if the file cannot be truncated.
+     */
+    public synchronized void truncate() throws IOException {
+        while (syncing) {
+            try {
+                wait();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("interrupted while waiting for log sync", e);
+            }
+        }
+        buffer.reset();
+        channel.truncate(0);
+        channel.position(0);
+        channel.force(true);
+        durable = appended;  // Positionen bleiben monoton, verworfene Einträge gelten als erledigt
+    }
+
+    /**
+     * Returns the number of fsync calls so far; with concurrent writers this is
+     * smaller than the number of mutations.
+     * @return number of fsync calls.
+     */
+    public synchronized long syncCount() {
+        return syncs;
+    }
+
+    @Override
+    public void close() throws IOException {
+        long lsn;
+        synchronized (this) {
+            lsn = appended;
+        }
+        sync(lsn);
+        channel.close();
+    }
+}
@@ -0,0 +1,511 @@
+//package directedGraph;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * Unveränderliche Implementierung von DirectedGraph im CSR-Format
+ * (compressed sparse row).
+ * <p>
+ * Die Knoten sind dicht mit 0, 1, ..., n-1 numeriert. Die Nachfolger des Knotens
+ * mit Nummer i stehen aufsteigend sortiert in targets[outOffsets[i]] bis
+ * targets[outOffsets[i+1]-1], die Kantengewichte an denselben Positionen in weights.
+ * Für die Vorgänger gibt es dieselbe Struktur in Gegenrichtung (reverse CSR).
+ * Eine Kante kostet damit zwei int- und zwei double-Einträge statt zwei TreeMap-Knoten
+ * mit geboxten Double-Werten, und die Nachbarn eines Knotens liegen hintereinander im Speicher.
+ * <p>
+ * Ein Graph wird entweder aus einem anderen Graphen kopiert (of) oder aus einem
+ * Kantenstrom aufgebaut (fromEdges). Im zweiten Fall sind die Knoten die Integer 0 bis n-1,
+ * und es wird keine Abbildung von Knoten auf Nummern benötigt.
+ * Alle verändernden Operationen werfen eine UnsupportedOperationException;
+ * invert() kopiert nichts, sondern vertauscht nur die beiden Richtungen.
+ * <p>
+ * Knotennummern und Adjazenzfelder teilt sich der Graph mit seinem VertexIndexer,
+ * über den die Graphalgorithmen direkt auf den Feldern arbeiten.
+ * @param <V> Knotentyp.
+ */
+public final class CsrDirectedGraph<V> implements DirectedGraph<V> {
+    private final int n;
+    private final VertexIndexer<V> index;  // Knotennummern und Adjazenzfelder
+
+    private final int[] outOffsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] inOffsets;
+    private final int[] sources;
+    private final double[] inWeights;
+
+    /** Adjazenzfelder einer Richtung. */
+    private static final class Csr {
+        final int[] offsets;
+        final int[] adj;
+        final double[] weights;
+
+        Csr(int[] offsets, int[] adj, double[] weights) {
+            this.offsets = offsets;
+            this.adj = adj;
+            this.weights = weights;
+        }
+    }
+
+    private CsrDirectedGraph(VertexIndexer<V> index, double[] weights, double[] inWeights) {
+        this.n = index.size();
+        this.index = index;
+        this.outOffsets = index.outOffsets;
+        this.targets = index.targets;
+        this.weights = weights;
+        this.inOffsets = index.inOffsets;
+        this.sources = index.sources;
+        this.inWeights = inWeights;
+    }
+
+    /**
+     * Erzeugt eine CSR-Kopie von g. Die Knoten werden in der Reihenfolge
+     * von g.getVertexSet() numeriert.
+     * @param g gerichteter Graph.
+     * @param <V> Knotentyp.
+     * @return unveränderlicher Graph mit denselben Knoten, Kanten und Gewichten.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> CsrDirectedGraph<V> of(DirectedGraph<V> g) {
+        if (g instanceof CsrDirectedGraph) {
+            return (CsrDirectedGraph<V>) g;
+        }
+        int n = g.getNumberOfVertexes();
+        Object[] vertexes = new Object[n];
+        Map<V, Integer> ids = new HashMap<>(2 * n);
+        int m = 0;
+        for (V v : g.getVertexSet()) {
+            vertexes[ids.size()] = v;
+            ids.put(v, ids.size());
+            m += g.getOutDegree(v);  // nicht getNumberOfEdges, das zählt überschriebene Kanten mit
+        }
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] w = new double[m];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            V v = (V) vertexes[i];
+            for (V u : g.getSuccessorVertexSet(v)) {
+                from[k] = i;
+                to[k] = ids.get(u);
+                w[k] = g.getWeight(v, u);
+                k++;
+            }
+        }
+        return build(n, vertexes, ids, m, from, to, w);
+    }
+
+    /**
+     * Baut einen Graphen mit den Knoten 0 bis n-1 aus einem Kantenstrom auf.
+     * Die Kante k führt von from[k] nach to[k] und hat das Gewicht weight[k];
+     * bei Mehrfachkanten gilt wie bei addEdge das zuletzt angegebene Gewicht.
+     * @param n Anzahl der Knoten.
+     * @param from Startknoten.
+     * @param to Zielknoten.
+     * @param weight Gewichte; null für Gewicht 1.
+     * @throws IllegalArgumentException falls ein Knoten nicht in 0..n-1 liegt.
+     * @return unveränderlicher Graph.
+     */
+    public static CsrDirectedGraph<Integer> fromEdges(int n, int[] from, int[] to, double[] weight) {
+        int m = from.length;
+        if (to.length != m || (weight != null && weight.length != m)) {
+            throw new IllegalArgumentException("from, to und weight müssen gleich lang sein");
+        }
+        for (int k = 0; k < m; k++) {
+            if (from[k] < 0 || from[k] >= n || to[k] < 0 || to[k] >= n) {
+                throw new IllegalArgumentException("Kante " + from[k] + " --> " + to[k] + " außerhalb 0.." + (n - 1));
+            }
+        }
+        if (weight == null) {
+            weight = new double[m];
+            Arrays.fill(weight, 1);
+        }
+        return build(n, null, null, m, from, to, weight);
+    }
+
+    private static <V> CsrDirectedGraph<V> build(int n, Object[] vertexes, Map<V, Integer> ids,
+            int m, int[] from, int[] to, double[] w) {
+        // nach Zielknoten gruppieren und wieder umkehren: Zeilen nach Zielknoten sortiert,
+        // Mehrfachkanten stehen in Eingabereihenfolge nebeneinander
+        Csr out = dedupe(n, transpose(n, group(n, m, to, from, w)));
+        Csr in = transpose(n, out);
+        return new CsrDirectedGraph<>(new VertexIndexer<>(n, vertexes, ids, out.offsets, out.adj, in.offsets, in.adj),
+                out.weights, in.weights);
+    }
+
+    /** Gruppiert die Kanten (key[k], val[k]) stabil nach key (Counting-Sort). */
+    private static Csr group(int n, int m, int[] key, int[] val, double[] w) {
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < m; k++) {
+            offsets[key[k] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] pos = Arrays.copyOf(offsets, n);
+        int[] adj = new int[m];
+        double[] ws = new double[m];
+        for (int k = 0; k < m; k++) {
+            int p = pos[key[k]]++;
+            adj[p] = val[k];
+            ws[p] = w[k];
+        }
+        return new Csr(offsets, adj, ws);
+    }
+
+    /** Kehrt alle Kanten um; die Zeilen des Ergebnisses sind aufsteigend sortiert. */
+    private static Csr transpose(int n, Csr c) {
+        int m = c.adj.length;
+        int[] offsets = new int[n + 1];
+        for (int k = 0; k < m; k++) {
+            offsets[c.adj[k] + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            offsets[i + 1] += offsets[i];
+        }
+        int[] pos = Arrays.copyOf(offsets, n);
+        int[] adj = new int[m];
+        double[] ws = new double[m];
+        for (int i = 0; i < n; i++) {
+            for (int k = c.offsets[i]; k < c.offsets[i + 1]; k++) {
+                int p = pos[c.adj[k]]++;
+                adj[p] = i;
+                ws[p] = c.weights[k];
+            }
+        }
+        return new Csr(offsets, adj, ws);
+    }
+
+    /** Entfernt Mehrfachkanten aus sortierten Zeilen, das letzte Gewicht bleibt. */
+    private static Csr dedupe(int n, Csr c) {
+        int[] offsets = new int[n + 1];
+        int q = 0;
+        for (int i = 0; i < n; i++) {
+            offsets[i] = q;
+            for (int k = c.offsets[i]; k < c.offsets[i + 1]; k++) {
+                if (q > offsets[i] && c.adj[q - 1] == c.adj[k]) {
+                    c.weights[q - 1] = c.weights[k];
+                } else {
+                    c.adj[q] = c.adj[k];
+                    c.weights[q] = c.weights[k];
+                    q++;
+                }
+            }
+        }
+        offsets[n] = q;
+        if (q == c.adj.length) {
+            return new Csr(offsets, c.adj, c.weights);
+        }
+        return new Csr(offsets, Arrays.copyOf(c.adj, q), Arrays.copyOf(c.weights, q));
+    }
+
+    private int indexOf(Object v) {
+        return index.indexOf(v);
+    }
+
+    private int checkedId(V v) {
+        int i = indexOf(v);
+        if (i < 0) {
+            throw new IllegalArgumentException("Knoten " + v + " nicht im Graph vorhanden");
+        }
+        return i;
+    }
+
+    /** Nummer der Kante von i nach j in targets, -1 falls nicht vorhanden. */
+    private int edge(int i, int j) {
+        int e = Arrays.binarySearch(targets, outOffsets[i], outOffsets[i + 1], j);
+        return e >= 0 ? e : -1;
+    }
+
+    /**
+     * Liefert die Knotennumerierung des Graphen zurück; die Felder werden nicht kopiert.
+     * @return Index mit denselben Nummern wie id und vertex.
+     */
+    public VertexIndexer<V> indexer() {
+        return index;
+    }
+
+    /**
+     * Liefert die Nummer des Knotens v zurück.
+     * @param v Knoten
+     * @return Nummer in 0..n-1, -1 falls v nicht im Graph vorhanden ist.
+     */
+    public int id(V v) {
+        return indexOf(v);
+    }
+
+    /**
+     * Liefert den Knoten mit der Nummer id zurück.
+     * @param id Knotennummer in 0..n-1.
+     * @return Knoten
+     */
+    public V vertex(int id) {
+        return index.vertex(id);
+    }
+
+    /** Erste Kante des Knotens id in targets/weights. */
+    public int outStart(int id) {
+        return outOffsets[id];
+    }
+
+    /** Position hinter der letzten Kante des Knotens id in targets/weights. */
+    public int outEnd(int id) {
+        return outOffsets[id + 1];
+    }
+
+    /** Zielknoten der Kante e. */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /** Gewicht der Kante e. */
+    public double weight(int e) {
+        return weights[e];
+    }
+
+    /** Erste eingehende Kante des Knotens id in sources. */
+    public int inStart(int id) {
+        return inOffsets[id];
+    }
+
+    /** Position hinter der letzten eingehenden Kante des Knotens id in sources. */
+    public int inEnd(int id) {
+        return inOffsets[id + 1];
+    }
+
+    /** Startknoten der eingehenden Kante e. */
+    public int source(int e) {
+        return sources[e];
+    }
+
+    @Override
+    public boolean addVertex(V v) {
+        throw new UnsupportedOperationException("CsrDirectedGraph ist unveränderlich");
+    }
+
+    @Override
+    public boolean addEdge(V v, V w) {
+        throw new UnsupportedOperationException("CsrDirectedGraph ist unveränderlich");
+    }
+
+    @Override
+    public boolean addEdge(V v, V w, double weight) {
+        throw new UnsupportedOperationException("CsrDirectedGraph ist unveränderlich");
+    }
+
+    @Override
+    public boolean containsVertex(V v) {
+        return indexOf(v) >= 0;
+    }
+
+    @Override
+    public boolean containsEdge(V v, V w) {
+        int i = indexOf(v);
+        int j = indexOf(w);
+        return i >= 0 && j >= 0 && edge(i, j) >= 0;
+    }
+
+    @Override
+    public double getWeight(V v, V w) {
+        int e = edge(checkedId(v), checkedId(w));
+        if (e < 0) {
+            throw new IllegalArgumentException("Kante " + v + " --> " + w + " nicht im Graph vorhanden");
+        }
+        return weights[e];
+    }
+
+    @Override
+    public int getNumberOfVertexes() {
+        return n;
+    }
+
+    @Override
+    public int getNumberOfEdges() {
+        return targets.length;
+    }
+
+    @Override
+    public Set<V> getVertexSet() {
+        return new AbstractSet<>() {
+            @Override
+            public Iterator<V> iterator() {
+                return new Iterator<>() {
+                    private int i = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return i < n;
+                    }
+
+                    @Override
+                    public V next() {
+                        if (i >= n) {
+                            throw new NoSuchElementException();
+                        }
+                        return vertex(i++);
+                    }
+                };
+            }
+
+            @Override
+            public int size() {
+                return n;
+            }
+
+            @Override
+            public boolean contains(Object o) {
+                return indexOf(o) >= 0;
+            }
+        };
+    }
+
+    @Override
+    public int getInDegree(V v) {
+        int i = checkedId(v);
+        return inOffsets[i + 1] - inOffsets[i];
+    }
+
+    @Override
+    public int getOutDegree(V v) {
+        int i = checkedId(v);
+        return outOffsets[i + 1] - outOffsets[i];
+    }
+
+    @Override
+    public Set<V> getPredecessorVertexSet(V v) {
+        int i = checkedId(v);
+        return new RowSet(sources, inOffsets[i], inOffsets[i + 1]);
+    }
+
+    @Override
+    public Set<V> getSuccessorVertexSet(V v) {
+        int i = checkedId(v);
+        return new RowSet(targets, outOffsets[i], outOffsets[i + 1]);
+    }
+
+    /** Nicht modifizierbare Sicht auf eine sortierte Zeile adj[from..to-1]. */
+    private final class RowSet extends AbstractSet<V> {
+        private final int[] adj;
+        private final int from;
+        private final int to;
+
+        RowSet(int[] adj, int from, int to) {
+            this.adj = adj;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Iterator<V> iterator() {
+            return new Iterator<>() {
+                private int k = from;
+
+                @Override
+                public boolean hasNext() {
+                    return k < to;
+                }
+
+                @Override
+                public V next() {
+                    if (k >= to) {
+                        throw new NoSuchElementException();
+                    }
+                    return vertex(adj[k++]);
+                }
+            };
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            int j = indexOf(o);
+            return j >= 0 && Arrays.binarySearch(adj, from, to, j) >= 0;
+        }
+    }
+
+    @Override
+    public DirectedGraph<V> invert() {
+        return new CsrDirectedGraph<>(index.inverted(), inWeights, weights);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder succAsString = new StringBuilder("");
+        for (int i = 0; i < n; i++) {
+            for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                succAsString.append(vertex(i) + " --> " + vertex(targets[e]) + " weight = " + weights[e] + "\n");
+            }
+        }
+        return succAsString.toString();
+    }
+
+    public static void main(String[] args) {
+        DirectedGraph<Integer> a = new AdjacencyListDirectedGraph<>();
+        a.addEdge(1, 2);
+        a.addEdge(2, 5);
+        a.addEdge(5, 1);
+        a.addEdge(2, 6);
+        a.addEdge(3, 7);
+        a.addEdge(4, 3);
+        a.addEdge(4, 6);
+        a.addEdge(7, 4);
+        a.addEdge(1, 2, 5.0);
+
+        CsrDirectedGraph<Integer> g = CsrDirectedGraph.of(a);
+        System.out.println(g.getNumberOfVertexes());	// 7
+        System.out.println(g.getNumberOfEdges());		// 8
+        System.out.println(g.getVertexSet());	// 1, 2, ..., 7
+        System.out.println(g.getSuccessorVertexSet(2));	// 5, 6
+        System.out.println(g.getPredecessorVertexSet(6));	// 2, 4
+        System.out.println(g.containsEdge(2, 1));	// false
+        System.out.println(g.getWeight(1, 2));	// 5.0
+        System.out.println(g.invert());
+            // 1 --> 5 weight = 1.0
+            // 2 --> 1 weight = 5.0
+            // ...
+
+        // Kantenstrom mit den Knoten 0..3, die Kante 0 --> 1 kommt doppelt vor
+        CsrDirectedGraph<Integer> h = CsrDirectedGraph.fromEdges(4,
+                new int[] {0, 2, 0, 1, 3}, new int[] {1, 3, 2, 2, 0}, new double[] {1, 2, 3, 4, 5});
+        System.out.println(h);
+            // 0 --> 1 weight = 1.0
+            // 0 --> 2 weight = 3.0
+            // 1 --> 2 weight = 4.0
+            // 2 --> 3 weight = 2.0
+            // 3 --> 0 weight = 5.0
+        System.out.println(new StrongComponents<>(h).numberOfComp());	// 1
+
+        // Zufallsgraph: Algorithmen auf der Adjazenzliste und auf der CSR-Kopie
+        int n = 5000;
+        Random rnd = new Random(1);
+        DirectedGraph<Integer> big = new AdjacencyListDirectedGraph<>();
+        for (int v = 0; v < n; v++) {
+            big.addVertex(v);
+        }
+        for (int k = 0; k < 5 * n; k++) {
+            big.addEdge(rnd.nextInt(n), rnd.nextInt(n));
+        }
+        long start = System.nanoTime();
+        int c1 = new StrongComponents<>(big).numberOfComp();
+        long t1 = System.nanoTime() - start;
+        start = System.nanoTime();
+        CsrDirectedGraph<Integer> csr = CsrDirectedGraph.of(big);
+        long t2 = System.nanoTime() - start;
+        start = System.nanoTime();
+        int c2 = new StrongComponents<>(csr).numberOfComp();
+        long t3 = System.nanoTime() - start;
+        System.out.println("AdjacencyList: " + c1 + " Komponenten in " + t1 / 1000000 + " ms");
+        System.out.println("CSR: " + c2 + " Komponenten in " + t3 / 1000000 + " ms (+ " + t2 / 1000000 + " ms Kopie)");
+    }
+}
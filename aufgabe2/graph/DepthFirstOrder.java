@@ -2,12 +2,16 @@
 // 26.09.2022
 //package directedGraph;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
 
 /**
  * Klasse für Tiefensuche.
+ * <p>
+ * Die Tiefensuche läuft über die Knotennummern eines VertexIndexer;
+ * besuchte Knoten werden in einem boolean-Feld markiert.
+ * Erst die Ergebnislisten enthalten wieder die Knoten selbst.
  *
  * @author Oliver Bittel
  * @since 22.02.2017
@@ -15,37 +19,135 @@ import java.util.List;
  */
 public class DepthFirstOrder<V> {
 
-    private final List<V> preOrder = new LinkedList<>();
-    private final List<V> postOrder = new LinkedList<>();
-    private final DirectedGraph<V> myGraph;
+    private final List<V> preOrder = new ArrayList<>();
+    private final List<V> postOrder = new ArrayList<>();
     private int numberOfDFTrees = 0;
+    private final int[] postOrderIds;
 	// ...
 
+    /**
+     * Ereignisse einer Tiefensuche.
+     * Alle Methoden tun standardmäßig nichts; es müssen nur die benötigten überschrieben werden.
+     *
+     * @param <V> Knotentyp.
+     */
+    public interface Visitor<V> {
+        /** v wird zum ersten Mal erreicht (Pre-Order). */
+        default void discover(V v) {}
+
+        /** Alle Nachfolger von v sind abgearbeitet (Post-Order). */
+        default void finish(V v) {}
+
+        /** Kante des Tiefensuchwalds: w wird über v entdeckt. */
+        default void treeEdge(V v, V w) {}
+
+        /** Kante zu einem Vorfahren von v (auch Schlinge); schließt einen Zyklus. */
+        default void backEdge(V v, V w) {}
+
+        /** Kante zu einem schon abgeschlossenen Nachfahren von v. */
+        default void forwardEdge(V v, V w) {}
+
+        /** Kante zu einem abgeschlossenen Knoten, der kein Nachfahre von v ist. */
+        default void crossEdge(V v, V w) {}
+    }
+
     /**
      * Führt eine Tiefensuche für g durch.
      *
      * @param g gerichteter Graph.
      */
     public DepthFirstOrder(DirectedGraph<V> g) {
-        myGraph = g;
-        for (V v : myGraph.getVertexSet()) {
-            if (!preOrder.contains(v)) {
-                visitDF(v);
-                postOrder.add(v);
-                numberOfDFTrees++;
-            }
-        }
+        this(VertexIndexer.of(g), null);
     }
 
-    public void visitDF(V vertex) {
-        preOrder.add(vertex);
+    /**
+     * Führt eine Tiefensuche für g durch und meldet dabei alle Knoten- und Kantenereignisse an visitor.
+     *
+     * @param g gerichteter Graph.
+     * @param visitor Empfänger der Ereignisse.
+     */
+    public DepthFirstOrder(DirectedGraph<V> g, Visitor<V> visitor) {
+        this(VertexIndexer.of(g), visitor);
+    }
 
-        for (V v : myGraph.getSuccessorVertexSet(vertex)) {
-            if (!preOrder.contains(v)) {
-                visitDF(v);
-                postOrder.add(v);
+    /**
+     * Führt eine Tiefensuche über die Knotennummern von idx durch.
+     * <p>
+     * Die Suche ist iterativ: statt Rekursion gibt es einen Stack mit den Knoten
+     * des aktuellen Pfads und für jeden Knoten einen Zeiger auf die nächste noch nicht
+     * betrachtete Kante. Jede Kante wird genau einmal betrachtet, die Laufzeit ist O(V+E),
+     * und auch sehr lange Pfade führen zu keinem StackOverflowError.
+     *
+     * @param idx Knotennumerierung eines gerichteten Graphen.
+     * @param visitor Empfänger der Ereignisse, null für keine.
+     */
+    DepthFirstOrder(VertexIndexer<V> idx, Visitor<V> visitor) {
+        int n = idx.size();
+        int[] pre = new int[n];
+        int[] post = new int[n];
+        int[] order = new int[n];  // Pre-Order-Nummer + 1, 0 = noch nicht besucht
+        int[] stack = new int[n];
+        int[] next = new int[n];   // nächste zu betrachtende Kante des Knotens
+        boolean[] finished = visitor == null ? null : new boolean[n];
+        int preCount = 0;
+        int postCount = 0;
+        for (int root = 0; root < n; root++) {
+            if (order[root] != 0) {
+                continue;
+            }
+            numberOfDFTrees++;
+            int top = 0;
+            stack[0] = root;
+            order[root] = ++preCount;
+            pre[preCount - 1] = root;
+            next[root] = idx.outStart(root);
+            if (visitor != null) {
+                visitor.discover(idx.vertex(root));
             }
+            while (top >= 0) {
+                int v = stack[top];
+                if (next[v] < idx.outEnd(v)) {
+                    int w = idx.target(next[v]++);
+                    if (order[w] == 0) {  // w absteigen
+                        if (visitor != null) {
+                            visitor.treeEdge(idx.vertex(v), idx.vertex(w));
+                            visitor.discover(idx.vertex(w));
+                        }
+                        order[w] = ++preCount;
+                        pre[preCount - 1] = w;
+                        next[w] = idx.outStart(w);
+                        stack[++top] = w;
+                    } else if (visitor != null) {
+                        if (!finished[w]) {  // w liegt noch auf dem Stack
+                            visitor.backEdge(idx.vertex(v), idx.vertex(w));
+                        } else if (order[w] > order[v]) {
+                            visitor.forwardEdge(idx.vertex(v), idx.vertex(w));
+                        } else {
+                            visitor.crossEdge(idx.vertex(v), idx.vertex(w));
+                        }
+                    }
+                } else {  // alle Kanten von v betrachtet
+                    post[postCount++] = v;
+                    top--;
+                    if (visitor != null) {
+                        finished[v] = true;
+                        visitor.finish(idx.vertex(v));
+                    }
+                }
+            }
+        }
+        for (int v : pre) {
+            preOrder.add(idx.vertex(v));
         }
+        for (int v : post) {
+            postOrder.add(idx.vertex(v));
+        }
+        postOrderIds = post;
+    }
+
+    /* Post-Order-Reihenfolge als Knotennummern des VertexIndexer */
+    int[] postOrderIds() {
+        return postOrderIds;
     }
 
     /**
@@ -93,5 +195,49 @@ public class DepthFirstOrder<V> {
         System.out.println(dfs.preOrder());		// [1, 2, 5, 6, 3, 7, 4]
         System.out.println(dfs.postOrder());		// [5, 6, 2, 1, 4, 7, 3]
 
+        new DepthFirstOrder<>(g, new Visitor<>() {
+            @Override
+            public void treeEdge(Integer v, Integer w) {
+                System.out.println(v + " --> " + w + " Baumkante");
+            }
+
+            @Override
+            public void backEdge(Integer v, Integer w) {
+                System.out.println(v + " --> " + w + " Rückwärtskante");
+            }
+
+            @Override
+            public void crossEdge(Integer v, Integer w) {
+                System.out.println(v + " --> " + w + " Querkante");
+            }
+        });
+            // 1 --> 2 Baumkante
+            // 2 --> 5 Baumkante
+            // 5 --> 1 Rückwärtskante
+            // 2 --> 6 Baumkante
+            // 3 --> 7 Baumkante
+            // 7 --> 4 Baumkante
+            // 4 --> 3 Rückwärtskante
+            // 4 --> 6 Querkante
+
+        DepthFirstOrder<Integer> csr = new DepthFirstOrder<>(CsrDirectedGraph.of(g));
+        System.out.println(csr.numberOfDFTrees());	// 2
+        System.out.println(csr.preOrder());		// [1, 2, 5, 6, 3, 7, 4]
+        System.out.println(csr.postOrder());		// [5, 6, 2, 1, 4, 7, 3]
+
+        // Pfad 0 --> 1 --> ... --> n-1: rekursiv wäre die Aufruftiefe n
+        int n = 1000000;
+        int[] from = new int[n - 1];
+        int[] to = new int[n - 1];
+        for (int v = 0; v < n - 1; v++) {
+            from[v] = v;
+            to[v] = v + 1;
+        }
+        long start = System.nanoTime();
+        DepthFirstOrder<Integer> path = new DepthFirstOrder<>(CsrDirectedGraph.fromEdges(n, from, to, null));
+        long stop = System.nanoTime();
+        System.out.println(path.numberOfDFTrees() + " Baum, " + path.postOrder().get(0) + " zuerst abgeschlossen, "
+                + (stop - start) / 1000000 + " ms");	// 1 Baum, 999999 zuerst abgeschlossen
+
     }
 }
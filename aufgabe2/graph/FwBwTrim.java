@@ -0,0 +1,336 @@
+//package directedGraph;
+
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.function.ObjIntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Parallele Bestimmung der strengen Komponenten mit Forward-Backward-Trim
+ * (Fleischer, Hendrickson, Pinar 2000; McLendon u. a. 2005).
+ * <p>
+ * Die Knoten werden in Teilprobleme zerlegt, die jeweils eine eigene Marke in part tragen.
+ * Ein Teilproblem P wird so bearbeitet:
+ * <ol>
+ * <li>Trim: Knoten ohne Vorgänger oder ohne Nachfolger in P sind triviale Komponenten
+ * und werden entfernt, wiederholt bis keiner mehr übrig ist.</li>
+ * <li>Für einen Pivotknoten p werden die in P von p aus erreichbaren Knoten F
+ * (Breitensuche vorwärts) und die p erreichenden Knoten B (rückwärts) bestimmt.
+ * F ∩ B ist die Komponente von p.</li>
+ * <li>F \ B, B \ F und P \ (F ∪ B) enthalten jeweils ganze Komponenten
+ * und werden unabhängig voneinander weiter zerlegt.</li>
+ * </ol>
+ * Große Teilprobleme werden als eigene Tasks im ForkJoinPool bearbeitet, große
+ * Suchfronten von Trim und Breitensuche mit parallelen Streams; kleine Fronten werden
+ * sequentiell abgearbeitet, kleine Teilprobleme mit dem sequentiellen Algorithmus von
+ * Pearce in linearer Zeit gelöst. Die Tasks warten nicht aufeinander (CountedCompleter),
+ * daher wächst auch bei vielen Zerlegungsstufen der Aufrufstack nicht.
+ * <p>
+ * Entfernt ein Pivot nur wenige Knoten (z. B. bei einer Kette kleiner Komponenten),
+ * kostet jede Zerlegung trotzdem O(|P|). Nach MAX_DEGENERATE solchen Zerlegungen
+ * hintereinander wird das Teilproblem daher ebenfalls mit Pearce gelöst, so bleibt
+ * die Laufzeit auch dann linear.
+ * <p>
+ * Die Komponentennummern werden in Fundreihenfolge vergeben und sind nicht
+ * topologisch sortiert.
+ */
+final class FwBwTrim {
+    private static final int PARALLEL_CUTOFF = 4096;
+    private static final int DONE = -1;  // Marke von Knoten mit Komponente
+    private static final int MAX_DEGENERATE = 2;
+
+    private final VertexIndexer<?> idx;
+    private final int[] compOf;
+    private final AtomicIntegerArray part;
+    private final AtomicIntegerArray inDeg;
+    private final AtomicIntegerArray outDeg;
+    private final AtomicInteger labels = new AtomicInteger();
+    private final AtomicInteger components = new AtomicInteger();
+    // für pearce, jeder Knoten wird von höchstens einem Aufruf benutzt
+    private final int[] rindex;
+    private final int[] next;
+    private final boolean[] root;
+
+    private FwBwTrim(VertexIndexer<?> idx, int[] compOf) {
+        this.idx = idx;
+        this.compOf = compOf;
+        int n = idx.size();
+        part = new AtomicIntegerArray(n);  // alle Knoten im Teilproblem mit Marke 0
+        inDeg = new AtomicIntegerArray(n);
+        outDeg = new AtomicIntegerArray(n);
+        rindex = new int[n];
+        next = new int[n];
+        root = new boolean[n];
+    }
+
+    /**
+     * Bestimmt die strengen Komponenten des Graphen von idx.
+     * Läuft im ForkJoinPool des aufrufenden Threads, sonst im Common Pool.
+     * @param idx Knotennumerierung eines gerichteten Graphen.
+     * @param compOf Ergebnis: Komponentennummer für jeden Knoten, Länge idx.size().
+     * @return Anzahl der Komponenten.
+     */
+    static int compute(VertexIndexer<?> idx, int[] compOf) {
+        FwBwTrim f = new FwBwTrim(idx, compOf);
+        if (idx.size() > 0) {
+            f.new Partition(null, IntStream.range(0, idx.size()).toArray(), 0).invoke();
+        }
+        return f.components.get();
+    }
+
+    /**
+     * Zerlegt ein Teilproblem. Das größte Teilergebnis wird in derselben Task weiter zerlegt,
+     * die anderen großen werden abgegeben, kleine sofort mit Pearce gelöst.
+     */
+    private final class Partition extends CountedCompleter<Void> {
+        private static final long serialVersionUID = 1L;
+        private int[] vertexes;
+        private final int degenerate;  // Anzahl der vorangegangenen entarteten Zerlegungen
+
+        Partition(CountedCompleter<?> parent, int[] vertexes, int degenerate) {
+            super(parent);
+            this.vertexes = vertexes;
+            this.degenerate = degenerate;
+        }
+
+        @Override
+        public void compute() {
+            int[] p = vertexes;
+            vertexes = null;  // sonst über die Elternkette bis zum Ende der Wurzel erreichbar
+            int d = degenerate;
+            while (p != null) {
+                if (p.length < PARALLEL_CUTOFF || d >= MAX_DEGENERATE) {
+                    pearce(p);
+                    break;
+                }
+                int[][] parts = split(p);
+                int largest = -1;
+                for (int k = 0; k < parts.length; k++) {
+                    if (largest < 0 || parts[k].length > parts[largest].length) {
+                        largest = k;
+                    }
+                }
+                for (int k = 0; k < parts.length; k++) {
+                    if (k == largest || parts[k].length == 0) {
+                        continue;
+                    }
+                    if (parts[k].length >= PARALLEL_CUTOFF) {
+                        addToPendingCount(1);
+                        new Partition(this, parts[k], 0).fork();
+                    } else {
+                        pearce(parts[k]);
+                    }
+                }
+                int[] rest = largest < 0 || parts[largest].length == 0 ? null : parts[largest];
+                d = rest != null && rest.length > p.length - p.length / 16 ? d + 1 : 0;
+                p = rest;
+            }
+            tryComplete();
+        }
+    }
+
+    private void assign(int v) {
+        compOf[v] = components.getAndIncrement();
+    }
+
+    /**
+     * Löst das Teilproblem p sequentiell mit dem Algorithmus von Pearce
+     * (wie StrongComponents.pearceAlgorithm, aber nur über Knoten mit der Marke von p).
+     * Fertige Knoten bekommen die Marke DONE und werden danach übergangen, daher
+     * genügen fortlaufende Besuchsnummern.
+     */
+    private void pearce(int[] p) {
+        int label = part.get(p[0]);
+        int[] path = new int[p.length];
+        int[] stack = new int[p.length];
+        int sp = 0;
+        int index = 1;
+        for (int r : p) {
+            if (part.get(r) != label) {
+                continue;
+            }
+            int top = 0;
+            path[0] = r;
+            rindex[r] = index++;
+            root[r] = true;
+            next[r] = idx.outStart(r);
+            while (top >= 0) {
+                int v = path[top];
+                if (next[v] < idx.outEnd(v)) {
+                    int w = idx.target(next[v]);
+                    if (part.get(w) == label) {
+                        if (rindex[w] == 0) {  // w besuchen, die Kante wird danach nochmal betrachtet
+                            rindex[w] = index++;
+                            root[w] = true;
+                            next[w] = idx.outStart(w);
+                            path[++top] = w;
+                            continue;
+                        }
+                        if (rindex[w] < rindex[v]) {
+                            rindex[v] = rindex[w];
+                            root[v] = false;
+                        }
+                    }
+                    next[v]++;
+                } else {  // v abschließen
+                    top--;
+                    if (root[v]) {  // v und die Knoten darüber auf dem Stack bilden eine Komponente
+                        int scc = components.getAndIncrement();
+                        while (sp > 0 && rindex[v] <= rindex[stack[sp - 1]]) {
+                            int w = stack[--sp];
+                            part.set(w, DONE);
+                            compOf[w] = scc;
+                        }
+                        part.set(v, DONE);
+                        compOf[v] = scc;
+                    } else {
+                        stack[sp++] = v;
+                    }
+                }
+            }
+        }
+    }
+
+    /** Bearbeitet das Teilproblem p und liefert die höchstens drei verbleibenden Teilprobleme. */
+    private int[][] split(int[] p) {
+        int label = part.get(p[0]);
+        int[] rest = trim(p, label);
+        if (rest.length == 0) {
+            return new int[0][];
+        }
+        // Pivot mit größtem Produkt aus Ein- und Ausgangsgrad, liegt eher in einer großen Komponente
+        int pivot = rest[0];
+        long best = -1;
+        for (int v : rest) {
+            long d = (long) inDeg.get(v) * outDeg.get(v);
+            if (d > best) {
+                best = d;
+                pivot = v;
+            }
+        }
+        int fLabel = labels.incrementAndGet();
+        int bLabel = labels.incrementAndGet();
+        int scc = components.getAndIncrement();
+
+        // vorwärts: label -> fLabel
+        part.set(pivot, fLabel);
+        search(new int[] {pivot}, (out, v) -> {
+            for (int e = idx.outStart(v); e < idx.outEnd(v); e++) {
+                int w = idx.target(e);
+                if (part.compareAndSet(w, label, fLabel)) {
+                    out.accept(w);
+                }
+            }
+        });
+        // rückwärts: fLabel -> Komponente des Pivots, label -> bLabel
+        part.set(pivot, DONE);
+        compOf[pivot] = scc;
+        search(new int[] {pivot}, (out, v) -> {
+            for (int e = idx.inStart(v); e < idx.inEnd(v); e++) {
+                int w = idx.source(e);
+                if (part.compareAndSet(w, fLabel, DONE)) {
+                    compOf[w] = scc;
+                    out.accept(w);
+                } else if (part.compareAndSet(w, label, bLabel)) {
+                    out.accept(w);
+                }
+            }
+        });
+
+        int[] count = new int[3];
+        for (int v : rest) {
+            int l = part.get(v);
+            if (l != DONE) {
+                count[l == label ? 0 : l == fLabel ? 1 : 2]++;
+            }
+        }
+        int[][] result = {new int[count[0]], new int[count[1]], new int[count[2]]};
+        count = new int[3];
+        for (int v : rest) {
+            int l = part.get(v);
+            if (l != DONE) {
+                int k = l == label ? 0 : l == fLabel ? 1 : 2;
+                result[k][count[k]++] = v;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Entfernt aus dem Teilproblem p mit Marke label wiederholt alle Knoten ohne Vorgänger
+     * oder ohne Nachfolger in p; jeder wird eine eigene Komponente.
+     * @return die übrigen Knoten von p.
+     */
+    private int[] trim(int[] p, int label) {
+        ObjIntConsumer<IntConsumer> degrees = (out, v) -> {
+            int in = 0;
+            for (int e = idx.inStart(v); e < idx.inEnd(v); e++) {
+                int w = idx.source(e);
+                if (w != v && part.get(w) == label) {
+                    in++;
+                }
+            }
+            int o = 0;
+            for (int e = idx.outStart(v); e < idx.outEnd(v); e++) {
+                int w = idx.target(e);
+                if (w != v && part.get(w) == label) {
+                    o++;
+                }
+            }
+            inDeg.set(v, in);
+            outDeg.set(v, o);
+            if (in == 0 || o == 0) {
+                out.accept(v);
+            }
+        };
+        int[] frontier = step(p, degrees);
+        for (int v : frontier) {  // erst nach dem Zählen entfernen, sonst fehlen sie in den Graden
+            part.set(v, DONE);
+            assign(v);
+        }
+        search(frontier, (out, v) -> {
+            for (int e = idx.outStart(v); e < idx.outEnd(v); e++) {
+                int w = idx.target(e);
+                if (w != v && part.get(w) == label && inDeg.decrementAndGet(w) == 0
+                        && part.compareAndSet(w, label, DONE)) {
+                    assign(w);
+                    out.accept(w);
+                }
+            }
+            for (int e = idx.inStart(v); e < idx.inEnd(v); e++) {
+                int w = idx.source(e);
+                if (w != v && part.get(w) == label && outDeg.decrementAndGet(w) == 0
+                        && part.compareAndSet(w, label, DONE)) {
+                    assign(w);
+                    out.accept(w);
+                }
+            }
+        });
+        return IntStream.of(p).filter(v -> part.get(v) == label).toArray();
+    }
+
+    /** Breitensuche: wendet expand auf die Front an, bis keine neuen Knoten mehr geliefert werden. */
+    private void search(int[] frontier, ObjIntConsumer<IntConsumer> expand) {
+        while (frontier.length > 0) {
+            frontier = step(frontier, expand);
+        }
+    }
+
+    /** Eine Stufe: sammelt die von expand gelieferten Knoten, parallel bei großer Front. */
+    private static int[] step(int[] frontier, ObjIntConsumer<IntConsumer> expand) {
+        if (frontier.length < PARALLEL_CUTOFF) {
+            IntStream.Builder next = IntStream.builder();
+            for (int v : frontier) {
+                expand.accept(next, v);
+            }
+            return next.build().toArray();
+        }
+        return IntStream.of(frontier).parallel().flatMap(v -> {
+            IntStream.Builder next = IntStream.builder();
+            expand.accept(next, v);
+            return next.build();
+        }).toArray();
+    }
+}
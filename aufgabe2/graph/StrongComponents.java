@@ -5,28 +5,48 @@
 
 import java.io.File;
 import java.io.FileNotFoundException;
-import java.util.Map;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Random;
 import java.util.Scanner;
 import java.util.Set;
-import java.util.TreeMap;
-import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Klasse für Bestimmung aller strengen Komponenten.
- * Kosaraju-Sharir Algorithmus.
+ * Kosaraju-Sharir Algorithmus, Algorithmus von Pearce oder parallel mit Forward-Backward-Trim.
+ * <p>
+ * Pearce (A space-efficient algorithm for finding strongly connected components, 2016)
+ * ist eine Variante des Algorithmus von Tarjan: eine einzige Tiefensuche ohne
+ * invertierten Graphen, die pro Knoten nur einen int-Wert (rindex), ein boolean (root)
+ * sowie Platz auf zwei int-Stacks braucht. Kosaraju-Sharir braucht zwei Tiefensuchen,
+ * davon eine über die Vorgängerkanten. Forward-Backward-Trim (siehe FwBwTrim) zerlegt
+ * den Graphen mit parallelen Breitensuchen und nutzt alle Kerne des ForkJoinPools.
+ * <p>
+ * Alle Algorithmen numerieren die Komponenten in topologischer Reihenfolge:
+ * führt eine Kante von Komponente i nach Komponente j != i, dann ist i &lt; j.
  * @author Oliver Bittel
  * @since 02.03.2020
  * @param <V> Knotentyp.
  */
 public class StrongComponents<V> {
-	// comp speichert fuer jede Komponente die zughörigen Knoten.
+	/** Algorithmus zur Bestimmung der strengen Komponenten. */
+	public enum Algorithm { KOSARAJU_SHARIR, PEARCE, FW_BW_TRIM }
+
+	// compOf speichert fuer jeden Knoten (Nummer im VertexIndexer) seine Komponente.
     // Die Komponenten sind numeriert: 0, 1, 2, ...
+	// Die Knoten der Komponente c stehen in members[compStart[c]] .. members[compStart[c+1]-1].
 
-	private final Map<Integer,Set<V>> comp = new TreeMap<>();
-	private final Set<V> besucht = new TreeSet<>();
+	private VertexIndexer<V> idx;
+	private int[] compOf;
+	private int[] compStart;
+	private int[] members;
 	private int comp_counter = 0;
 
 	/**
@@ -35,56 +55,257 @@ public class StrongComponents<V> {
 	 * @param g gerichteter Graph.
 	 */
 	public StrongComponents(DirectedGraph<V> g) {
-		kosarajuSharirAlgorithm(g);
+		this(g, Algorithm.KOSARAJU_SHARIR);
+	}
+
+	/**
+	 * Ermittelt alle strengen Komponenten mit dem angegebenen Algorithmus.
+	 * @param g gerichteter Graph.
+	 * @param algorithm Algorithmus.
+	 */
+	public StrongComponents(DirectedGraph<V> g, Algorithm algorithm) {
+		if (algorithm == Algorithm.PEARCE)
+			pearceAlgorithm(g);
+		else if (algorithm == Algorithm.FW_BW_TRIM)
+			forwardBackwardTrim(g);
+		else
+			kosarajuSharirAlgorithm(g);
 	}
 
 	/* Ermittelt die invertierte PostOrder-Reihenfolge mittels einer Tiefensuche */
 	public List<V> inversePostOrder(DirectedGraph<V> g) {
 		DepthFirstOrder<V> d = new DepthFirstOrder<>(g);
-		List<V> postOrder = new LinkedList<>(d.postOrder());
+		List<V> postOrder = new ArrayList<>(d.postOrder());
 		Collections.reverse(postOrder);
 		return postOrder;
 	}
 
 	/** Macht eine Tiefensuche über die Knoten der obersten Tiefensuchebene in
-		der invertierten Post-Order-Reihenfolge */
+		der invertierten Post-Order-Reihenfolge.
+		Gearbeitet wird auf den Knotennummern eines VertexIndexer; statt g.invert()
+		werden die Vorgängerlisten benutzt, besucht ist ein int-Feld mit der Komponentennummer. */
 	public void kosarajuSharirAlgorithm(DirectedGraph<V> g) {
-		List<V> p_inverse = inversePostOrder(g);
-		DirectedGraph<V> g_inverse = g.invert();
-
-		for (V v : p_inverse) {
-			if (!besucht.contains(v)) {
-				comp.put(comp_counter, new TreeSet<>());
-				comp.get(comp_counter).add(v);
-				besucht.add(v);
-				kosarajuSharirAlgorithmR(v, g_inverse, comp_counter);
+		idx = VertexIndexer.of(g);
+		int n = idx.size();
+		int[] post = new DepthFirstOrder<>(idx, null).postOrderIds();
+		int[] stack = new int[n];
+		compOf = new int[n];
+		Arrays.fill(compOf, -1);
+		comp_counter = 0;
+		for (int k = n - 1; k >= 0; k--) {
+			int v = post[k];
+			if (compOf[v] < 0) {
+				compOf[v] = comp_counter;
+				collectComponent(v, compOf, stack);
 				comp_counter++;
 			}
 		}
+		groupComponents();
+	}
+
+	/* Ordnet alle über Vorgängerkanten erreichbaren, noch freien Knoten der Komponente von root zu;
+	   iterativ mit einem Stack, damit lange Pfade keinen StackOverflowError auslösen */
+	private void collectComponent(int root, int[] compOf, int[] stack) {
+		int top = 0;
+		stack[0] = root;
+		while (top >= 0) {
+			int v = stack[top--];
+			for (int e = idx.inStart(v); e < idx.inEnd(v); e++) {
+				int w = idx.source(e);
+				if (compOf[w] < 0) {
+					compOf[w] = compOf[root];
+					stack[++top] = w;
+				}
+			}
+		}
+	}
+
+	/** Algorithmus von Pearce (PEA_FIND_SCC2), iterativ.
+		rindex[v] ist 0 für unbesuchte Knoten, die Besuchsnummer (bzw. die kleinste über
+		den Teilbaum erreichbare Besuchsnummer) für Knoten ohne Komponente, und für Knoten
+		mit Komponente eine von n-1 abwärts vergebene Komponentennummer. Da index nur
+		die Knoten auf Pfad und Stack zählt, liegen Besuchsnummern immer unter c. */
+	public void pearceAlgorithm(DirectedGraph<V> g) {
+		idx = VertexIndexer.of(g);
+		int n = idx.size();
+		int[] rindex = new int[n];
+		boolean[] root = new boolean[n];
+		int[] path = new int[n];  // Knoten des aktuellen Tiefensuchpfads
+		int[] next = new int[n];  // nächste zu betrachtende Kante des Knotens
+		int[] stack = new int[n]; // besuchte Knoten ohne Komponente, die nicht Wurzel sind
+		int sp = 0;
+		int index = 1;
+		int c = n - 1;
+		for (int r = 0; r < n; r++) {
+			if (rindex[r] != 0)
+				continue;
+			int top = 0;
+			path[0] = r;
+			rindex[r] = index++;
+			root[r] = true;
+			next[r] = idx.outStart(r);
+			while (top >= 0) {
+				int v = path[top];
+				if (next[v] < idx.outEnd(v)) {
+					int w = idx.target(next[v]);
+					if (rindex[w] == 0) {  // w besuchen, die Kante wird danach nochmal betrachtet
+						rindex[w] = index++;
+						root[w] = true;
+						next[w] = idx.outStart(w);
+						path[++top] = w;
+						continue;
+					}
+					if (rindex[w] < rindex[v]) {
+						rindex[v] = rindex[w];
+						root[v] = false;
+					}
+					next[v]++;
+				} else {  // v abschließen
+					top--;
+					if (root[v]) {  // v und die Knoten darüber auf dem Stack bilden eine Komponente
+						index--;
+						while (sp > 0 && rindex[v] <= rindex[stack[sp - 1]]) {
+							rindex[stack[--sp]] = c;
+							index--;
+						}
+						rindex[v] = c;
+						c--;
+					} else {
+						stack[sp++] = v;
+					}
+				}
+			}
+		}
+		// die erste gefundene Komponente ist eine Senke und bekommt die höchste Nummer
+		comp_counter = n - 1 - c;
+		for (int v = 0; v < n; v++)
+			rindex[v] -= c + 1;
+		compOf = rindex;
+		groupComponents();
+	}
+
+	/** Paralleler Forward-Backward-Trim-Algorithmus (siehe FwBwTrim).
+		Läuft im ForkJoinPool des aufrufenden Threads, sonst im Common Pool.
+		Die Komponenten werden anschließend topologisch umnumeriert. */
+	public void forwardBackwardTrim(DirectedGraph<V> g) {
+		idx = VertexIndexer.of(g);
+		compOf = new int[idx.size()];
+		comp_counter = FwBwTrim.compute(idx, compOf);
+		groupComponents();
+		topologicalRenumber();
 	}
 
-	public void kosarajuSharirAlgorithmR(V v, DirectedGraph<V> g, int comp_counter) {
-		for (var neighbour : g.getSuccessorVertexSet(v)) {
-			if (!besucht.contains(neighbour)) {
-				comp.get(comp_counter).add(neighbour);
-				besucht.add(neighbour);
-				kosarajuSharirAlgorithmR(neighbour, g, comp_counter);
+	/* Numeriert die Komponenten in topologischer Reihenfolge des Komponentengraphen um
+	   (Kahn-Algorithmus; jede Kante zwischen zwei Komponenten zählt einzeln) */
+	private void topologicalRenumber() {
+		int[] inDegree = new int[comp_counter];
+		for (int v = 0; v < compOf.length; v++)
+			for (int e = idx.outStart(v); e < idx.outEnd(v); e++)
+				if (compOf[idx.target(e)] != compOf[v])
+					inDegree[compOf[idx.target(e)]]++;
+		int[] queue = new int[comp_counter];
+		int head = 0;
+		int tail = 0;
+		for (int c = 0; c < comp_counter; c++)
+			if (inDegree[c] == 0)
+				queue[tail++] = c;
+		int[] number = new int[comp_counter];
+		while (head < tail) {
+			int c = queue[head];
+			number[c] = head++;
+			for (int k = compStart[c]; k < compStart[c + 1]; k++) {
+				int v = members[k];
+				for (int e = idx.outStart(v); e < idx.outEnd(v); e++) {
+					int d = compOf[idx.target(e)];
+					if (d != c && --inDegree[d] == 0)
+						queue[tail++] = d;
+				}
 			}
 		}
+		for (int v = 0; v < compOf.length; v++)
+			compOf[v] = number[compOf[v]];
+		groupComponents();
+	}
+
+	/* Sortiert die Knoten nach Komponente (Counting-Sort), innerhalb einer Komponente nach Nummer */
+	private void groupComponents() {
+		int n = compOf.length;
+		compStart = new int[comp_counter + 1];
+		for (int v = 0; v < n; v++)
+			compStart[compOf[v] + 1]++;
+		for (int c = 0; c < comp_counter; c++)
+			compStart[c + 1] += compStart[c];
+		int[] pos = Arrays.copyOf(compStart, comp_counter);
+		members = new int[n];
+		for (int v = 0; v < n; v++)
+			members[pos[compOf[v]]++] = v;
 	}
 
 	/* Anzahl der starken Komponenten. */
 	public int numberOfComp() {
-		return comp.size();
+		return comp_counter;
+	}
+
+	/**
+	 * Liefert die Nummer der Komponente von v zurück.
+	 * @param v Knoten
+	 * @throws IllegalArgumentException falls Knoten v nicht im Graph vorhanden ist.
+	 * @return Komponentennummer in 0 .. numberOfComp()-1.
+	 */
+	public int componentOf(V v) {
+		int i = idx.id(v);
+		if (i < 0)
+			throw new IllegalArgumentException("Knoten " + v + " nicht im Graph vorhanden");
+		return compOf[i];
+	}
+
+	/**
+	 * Liefert eine nicht modifizierbare Menge mit den Knoten der Komponente c zurück.
+	 * @param c Komponentennummer in 0 .. numberOfComp()-1.
+	 * @return Knotenmenge
+	 */
+	public Set<V> getComponent(int c) {
+		Objects.checkIndex(c, comp_counter);
+		return new AbstractSet<>() {
+			@Override
+			public Iterator<V> iterator() {
+				return new Iterator<>() {
+					private int k = compStart[c];
+
+					@Override
+					public boolean hasNext() {
+						return k < compStart[c + 1];
+					}
+
+					@Override
+					public V next() {
+						if (k >= compStart[c + 1])
+							throw new NoSuchElementException();
+						return idx.vertex(members[k++]);
+					}
+				};
+			}
+
+			@Override
+			public int size() {
+				return compStart[c + 1] - compStart[c];
+			}
+
+			@Override
+			public boolean contains(Object o) {
+				int i = idx.indexOf(o);
+				return i >= 0 && compOf[i] == c;
+			}
+		};
 	}
 
 	@Override
 	public String toString() {
 		StringBuilder sb = new StringBuilder("");
-		for (var v : comp.entrySet()) {
-			sb.append("Component ").append(v.getKey()).append(": ");
-			for (var e : v.getValue())
-				sb.append(e.toString()).append(", ");
+		for (int c = 0; c < comp_counter; c++) {
+			sb.append("Component ").append(c).append(": ");
+			for (int k = compStart[c]; k < compStart[c + 1]; k++)
+				sb.append(idx.vertex(members[k]).toString()).append(", ");
 			sb.append("\n");
 		}
 		return sb.toString();
@@ -137,6 +358,41 @@ public class StrongComponents<V> {
         	// Component 1: 8,
             // Component 2: 1, 2, 3,
             // Component 3: 4,
+
+		System.out.println(new StrongComponents<>(CsrDirectedGraph.of(g)));	// wie oben
+
+		StrongComponents<Integer> p = new StrongComponents<>(g, Algorithm.PEARCE);
+		System.out.println(p);	// wie oben
+		System.out.println(new StrongComponents<>(g, Algorithm.FW_BW_TRIM));	// wie oben
+		System.out.println(p.componentOf(2));	// 2
+		System.out.println(p.getComponent(0));	// [5, 6, 7]
+
+		// Kette von 2-Zyklen: jeder Pivot von FW_BW_TRIM trennt nur eine kleine Komponente ab
+		DirectedGraph<Integer> chain = chainOfCycles(40000);
+		StrongComponents<Integer> pc = new StrongComponents<>(chain, Algorithm.PEARCE);
+		StrongComponents<Integer> fc = new StrongComponents<>(chain, Algorithm.FW_BW_TRIM);
+		boolean same = pc.numberOfComp() == 20000 && fc.numberOfComp() == 20000;
+		for (int v = 0; v < 40000; v++)
+			same &= pc.componentOf(v) == fc.componentOf(v);
+		System.out.println(same);	// true
+	}
+
+	/* Kette aus n/2 Zyklen i <-> i+1 mit Kanten i+1 -> i+2 */
+	private static DirectedGraph<Integer> chainOfCycles(int n) {
+		int[] from = new int[3 * n / 2];
+		int[] to = new int[3 * n / 2];
+		int m = 0;
+		for (int i = 0; i + 1 < n; i += 2) {
+			from[m] = i;
+			to[m++] = i + 1;
+			from[m] = i + 1;
+			to[m++] = i;
+			if (i + 2 < n) {
+				from[m] = i + 1;
+				to[m++] = i + 2;
+			}
+		}
+		return CsrDirectedGraph.fromEdges(n, Arrays.copyOf(from, m), Arrays.copyOf(to, m), null);
 	}
 
 	private static void test2() throws FileNotFoundException {
@@ -153,7 +409,48 @@ public class StrongComponents<V> {
 
 	}
 
+	/* Vergleich der Algorithmen auf einem großen Zufallsgraphen, nur mit Argument "benchmark" */
+	private static void test3() {
+		int n = 1000000;
+		int m = 4 * n;
+		Random rnd = new Random(1);
+		int[] from = new int[m];
+		int[] to = new int[m];
+		for (int k = 0; k < m; k++) {
+			from[k] = rnd.nextInt(n);
+			to[k] = rnd.nextInt(n);
+		}
+		DirectedGraph<Integer> g = CsrDirectedGraph.fromEdges(n, from, to, null);
+		for (Algorithm a : Algorithm.values()) {
+			long start = System.nanoTime();
+			StrongComponents<Integer> sc = new StrongComponents<>(g, a);
+			long stop = System.nanoTime();
+			System.out.println(a + ": " + sc.numberOfComp() + " Komponenten in " + (stop - start) / 1000000 + " ms");
+		}
+		// Skalierung: FW_BW_TRIM mit 1, 2, 4, ... Threads
+		for (int threads = 1; threads <= Runtime.getRuntime().availableProcessors(); threads *= 2) {
+			ForkJoinPool pool = new ForkJoinPool(threads);
+			long start = System.nanoTime();
+			int c = pool.submit(() -> new StrongComponents<>(g, Algorithm.FW_BW_TRIM).numberOfComp()).join();
+			long stop = System.nanoTime();
+			pool.shutdown();
+			System.out.println(threads + " Threads: " + c + " Komponenten in " + (stop - start) / 1000000 + " ms");
+		}
+		// ungünstiger Fall für FW_BW_TRIM: Kette kleiner Komponenten
+		DirectedGraph<Integer> chain = chainOfCycles(n);
+		for (Algorithm a : Algorithm.values()) {
+			long start = System.nanoTime();
+			StrongComponents<Integer> sc = new StrongComponents<>(chain, a);
+			long stop = System.nanoTime();
+			System.out.println(a + " (Kette): " + sc.numberOfComp() + " Komponenten in " + (stop - start) / 1000000 + " ms");
+		}
+	}
+
 	public static void main(String[] args) throws FileNotFoundException {
+		if (args.length > 0 && args[0].equals("benchmark")) {
+			test3();
+			return;
+		}
 		test1();
 		test2();
 	}
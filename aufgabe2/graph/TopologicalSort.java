@@ -3,13 +3,9 @@
 
 //package directedGraph;
 
+import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Map;
-import java.util.ArrayDeque;
-import java.util.Queue;
-import java.util.TreeMap;
 
 /**
  * Klasse zur Erstellung einer topologischen Sortierung.
@@ -18,7 +14,7 @@ import java.util.TreeMap;
  * @param <V> Knotentyp.
  */
 public class TopologicalSort<V> {
-    private List<V> ts = new LinkedList<>(); // topologisch sortierte Folge
+    private List<V> ts = new ArrayList<>(); // topologisch sortierte Folge
 	// ...
 
 	/**
@@ -26,34 +22,43 @@ public class TopologicalSort<V> {
 	 * @param g gerichteter Graph.
 	 */
 	public TopologicalSort(DirectedGraph<V> graph) {
-        List<V> result = new LinkedList<>();
-		Map<V, Integer> inDegree = new TreeMap<>();
-		Queue<V> q = new ArrayDeque<>();
+		this(VertexIndexer.of(graph));
+	}
 
-		for (V v : graph.getVertexSet()) {
-			inDegree.put(v, graph.getInDegree(v));
-			if (inDegree.get(v) == 0) {
-				q.add(v);
+	/**
+	 * Kahn-Algorithmus über die Knotennummern von idx;
+	 * Eingangsgrade und Schlange sind int-Felder.
+	 * @param idx Knotennumerierung eines gerichteten Graphen.
+	 */
+	TopologicalSort(VertexIndexer<V> idx) {
+		int n = idx.size();
+		int[] inDegree = new int[n];
+		int[] queue = new int[n];
+		int head = 0;
+		int tail = 0;
+		for (int v = 0; v < n; v++) {
+			inDegree[v] = idx.inEnd(v) - idx.inStart(v);
+			if (inDegree[v] == 0) {
+				queue[tail++] = v;
 			}
 		}
-
-		while (!q.isEmpty()) {
-			V v = q.remove();
-			result.add(v);
-			for (V w : graph.getSuccessorVertexSet(v)) {
-				inDegree.put(w, inDegree.get(w) - 1);
- 				if (inDegree.get(w) == 0) {
-					q.add(w);
+		while (head < tail) {
+			int v = queue[head++];
+			for (int e = idx.outStart(v); e < idx.outEnd(v); e++) {
+				int w = idx.target(e);
+				if (--inDegree[w] == 0) {
+					queue[tail++] = w;
 				}
 			}
 		}
-
 		// speichere die Topologische Sortierung in ts nur, wenn keine Zyklen existieren
-		if (result.size() == graph.getNumberOfVertexes()) {
-			ts.addAll(result);
+		if (tail == n) {
+			for (int v : queue) {
+				ts.add(idx.vertex(v));
+			}
 		}
-    }
-    
+	}
+
 	/**
 	 * Liefert eine nicht modifizierbare Liste (unmodifiable view) zurück,
 	 * die topologisch sortiert ist.
@@ -78,6 +83,7 @@ public class TopologicalSort<V> {
 		TopologicalSort<Integer> ts1 = new TopologicalSort<>(g);
 		
 		System.out.println(ts1.topologicalSortedList()); // [1, 2, 3, 4, 5, 6, 7]
+		System.out.println(new TopologicalSort<>(CsrDirectedGraph.of(g)).topologicalSortedList()); // [1, 2, 3, 4, 5, 6, 7]
 
 		System.out.println("\nMorgenroutine:");
 		DirectedGraph<String> morningRoutine = new AdjacencyListDirectedGraph<>();
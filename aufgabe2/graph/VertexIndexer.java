@@ -0,0 +1,195 @@
+//package directedGraph;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Dichte Numerierung der Knoten eines gerichteten Graphen.
+ * <p>
+ * Jeder Knoten bekommt eine Nummer aus 0, 1, ..., n-1 (in der Reihenfolge von
+ * getVertexSet()), und Nachfolger und Vorgänger sind über diese Nummern als int-Felder
+ * im CSR-Format abrufbar: die Nachfolger des Knotens i sind target(e) für
+ * outStart(i) &lt;= e &lt; outEnd(i), die Vorgänger entsprechend source(e) für
+ * inStart(i) &lt;= e &lt; inEnd(i).
+ * <p>
+ * Damit können Graphalgorithmen ihren Zustand in int- und boolean-Feldern halten statt in
+ * TreeMap, TreeSet oder LinkedList mit den Knotenobjekten als Schlüssel; erst das
+ * Ergebnis wird mit vertex wieder auf die Knoten abgebildet
+ * (siehe DepthFirstOrder, TopologicalSort und StrongComponents).
+ * <p>
+ * Der Index ist eine Momentaufnahme: spätere Änderungen am Graphen werden nicht übernommen.
+ * Für einen CsrDirectedGraph liefert of den Index des Graphen selbst, ohne Kopie.
+ * @param <V> Knotentyp.
+ */
+public final class VertexIndexer<V> {
+    private final int n;
+    private final Object[] vertexes;    // Nummer -> Knoten; null, falls Knoten = Nummer
+    private final Map<V, Integer> ids;  // Knoten -> Nummer; null, falls Knoten = Nummer
+
+    // CSR-Felder, werden von CsrDirectedGraph direkt mitbenutzt
+    final int[] outOffsets;
+    final int[] targets;
+    final int[] inOffsets;
+    final int[] sources;
+
+    VertexIndexer(int n, Object[] vertexes, Map<V, Integer> ids,
+            int[] outOffsets, int[] targets, int[] inOffsets, int[] sources) {
+        this.n = n;
+        this.vertexes = vertexes;
+        this.ids = ids;
+        this.outOffsets = outOffsets;
+        this.targets = targets;
+        this.inOffsets = inOffsets;
+        this.sources = sources;
+    }
+
+    /**
+     * Numeriert die Knoten von g und legt die Nachfolger- und Vorgängerlisten als int-Felder an.
+     * @param g gerichteter Graph.
+     * @param <V> Knotentyp.
+     * @return Index von g.
+     */
+    @SuppressWarnings("unchecked")
+    public static <V> VertexIndexer<V> of(DirectedGraph<V> g) {
+        if (g instanceof CsrDirectedGraph) {
+            return ((CsrDirectedGraph<V>) g).indexer();
+        }
+        int n = g.getNumberOfVertexes();
+        Object[] vertexes = new Object[n];
+        Map<V, Integer> ids = new HashMap<>(2 * n);
+        int[] outOffsets = new int[n + 1];
+        for (V v : g.getVertexSet()) {
+            int i = ids.size();
+            vertexes[i] = v;
+            ids.put(v, i);
+            outOffsets[i + 1] = outOffsets[i] + g.getOutDegree(v);
+        }
+        int[] targets = new int[outOffsets[n]];
+        int k = 0;
+        for (int i = 0; i < n; i++) {
+            for (V w : g.getSuccessorVertexSet((V) vertexes[i])) {
+                targets[k++] = ids.get(w);
+            }
+        }
+        // Vorgänger durch Umkehren der Nachfolgerlisten (Counting-Sort nach Zielknoten)
+        int[] inOffsets = new int[n + 1];
+        for (int w : targets) {
+            inOffsets[w + 1]++;
+        }
+        for (int i = 0; i < n; i++) {
+            inOffsets[i + 1] += inOffsets[i];
+        }
+        int[] pos = Arrays.copyOf(inOffsets, n);
+        int[] sources = new int[targets.length];
+        for (int i = 0; i < n; i++) {
+            for (int e = outOffsets[i]; e < outOffsets[i + 1]; e++) {
+                sources[pos[targets[e]]++] = i;
+            }
+        }
+        return new VertexIndexer<>(n, vertexes, ids, outOffsets, targets, inOffsets, sources);
+    }
+
+    /** Index mit vertauschten Richtungen, für CsrDirectedGraph.invert(). */
+    VertexIndexer<V> inverted() {
+        return new VertexIndexer<>(n, vertexes, ids, inOffsets, sources, outOffsets, targets);
+    }
+
+    /** Nummer von v, -1 falls v nicht vorkommt; nimmt beliebige Objekte wie Set.contains. */
+    int indexOf(Object v) {
+        if (ids == null) {
+            if (v instanceof Integer) {
+                int i = (Integer) v;
+                return i >= 0 && i < n ? i : -1;
+            }
+            return -1;
+        }
+        Integer i = ids.get(v);
+        return i == null ? -1 : i;
+    }
+
+    /**
+     * Liefert die Anzahl der Knoten zurück.
+     * @return n
+     */
+    public int size() {
+        return n;
+    }
+
+    /**
+     * Liefert die Anzahl der Kanten zurück.
+     * @return Kantenzahl.
+     */
+    public int numberOfEdges() {
+        return targets.length;
+    }
+
+    /**
+     * Liefert die Nummer des Knotens v zurück.
+     * @param v Knoten
+     * @return Nummer in 0..n-1, -1 falls v nicht im Graph vorhanden ist.
+     */
+    public int id(V v) {
+        return indexOf(v);
+    }
+
+    /**
+     * Liefert den Knoten mit der Nummer id zurück.
+     * @param id Knotennummer in 0..n-1.
+     * @return Knoten
+     */
+    @SuppressWarnings("unchecked")
+    public V vertex(int id) {
+        if (vertexes == null) {
+            Objects.checkIndex(id, n);
+            return (V) Integer.valueOf(id);
+        }
+        return (V) vertexes[id];
+    }
+
+    /** Erste ausgehende Kante des Knotens id. */
+    public int outStart(int id) {
+        return outOffsets[id];
+    }
+
+    /** Position hinter der letzten ausgehenden Kante des Knotens id. */
+    public int outEnd(int id) {
+        return outOffsets[id + 1];
+    }
+
+    /** Zielknoten der ausgehenden Kante e. */
+    public int target(int e) {
+        return targets[e];
+    }
+
+    /** Erste eingehende Kante des Knotens id. */
+    public int inStart(int id) {
+        return inOffsets[id];
+    }
+
+    /** Position hinter der letzten eingehenden Kante des Knotens id. */
+    public int inEnd(int id) {
+        return inOffsets[id + 1];
+    }
+
+    /** Startknoten der eingehenden Kante e. */
+    public int source(int e) {
+        return sources[e];
+    }
+
+    public static void main(String[] args) {
+        DirectedGraph<String> g = new AdjacencyListDirectedGraph<>();
+        g.addEdge("Socken", "Schuhe");
+        g.addEdge("Hose", "Schuhe");
+        g.addEdge("Hose", "Gürtel");
+
+        VertexIndexer<String> idx = VertexIndexer.of(g);
+        System.out.println(idx.size());	// 4
+        System.out.println(idx.id("Hose"));	// 1
+        System.out.println(idx.vertex(2));	// Schuhe
+        for (int e = idx.inStart(2); e < idx.inEnd(2); e++) {
+            System.out.println(idx.vertex(idx.source(e)));	// Hose, Socken
+        }
+    }
+}